@@ -0,0 +1,121 @@
+package sample;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.wavefront.sdk.common.Pair;
+import com.wavefront.sdk.common.WavefrontSender;
+import com.wavefront.sdk.entities.histograms.HistogramGranularity;
+import com.wavefront.sdk.entities.tracing.SpanLog;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that metrics and spans of the sample flow to Wavefront, using a local stand-in
+ * sender. Also run as a native test with the {@code native} profile.
+ */
+@AutoConfigureMetrics
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT,
+    properties = { "management.metrics.export.wavefront.uri=proxy://localhost:2878",
+        "management.metrics.export.wavefront.step=1s" })
+class WavefrontSampleApplicationTests {
+
+  @Autowired
+  private TestRestTemplate restTemplate;
+
+  @Autowired
+  private RecordingWavefrontSender sender;
+
+  @Test
+  void metricsAndSpansAreSent() throws InterruptedException {
+    assertThat(this.restTemplate.getForObject("/", String.class)).isEqualTo("Hello World!");
+    long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+    while ((this.sender.metrics.isEmpty() || this.sender.spans.isEmpty()) && System.nanoTime() < deadline) {
+      Thread.sleep(50);
+    }
+    assertThat(this.sender.metrics).isNotEmpty();
+    assertThat(this.sender.spans).isNotEmpty();
+  }
+
+  @TestConfiguration(proxyBeanMethods = false)
+  static class StandInSenderConfiguration {
+
+    @Bean
+    RecordingWavefrontSender wavefrontSender() {
+      return new RecordingWavefrontSender();
+    }
+
+  }
+
+  static class RecordingWavefrontSender implements WavefrontSender {
+
+    final List<String> metrics = new CopyOnWriteArrayList<>();
+
+    final List<String> spans = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String getClientId() {
+      return "stand-in";
+    }
+
+    @Override
+    public void sendMetric(String name, double value, Long timestamp, String source, Map<String, String> tags) {
+      this.metrics.add(name);
+    }
+
+    @Override
+    public void sendFormattedMetric(String point) {
+      this.metrics.add(point);
+    }
+
+    @Override
+    public void sendDistribution(String name, List<Pair<Double, Integer>> centroids,
+        Set<HistogramGranularity> histogramGranularities, Long timestamp, String source, Map<String, String> tags) {
+      this.metrics.add(name);
+    }
+
+    @Override
+    public void sendSpan(String name, long startMillis, long durationMillis, String source, UUID traceId,
+        UUID spanId, List<UUID> parents, List<UUID> followsFrom, List<Pair<String, String>> tags,
+        List<SpanLog> spanLogs) {
+      this.spans.add(name);
+    }
+
+    @Override
+    public void sendEvent(String name, long startMillis, long endMillis, String source, Map<String, String> tags,
+        Map<String, String> annotations) {
+    }
+
+    @Override
+    public void sendLog(String name, double value, Long timestamp, String source, Map<String, String> tags) {
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public int getFailureCount() {
+      return 0;
+    }
+
+    @Override
+    public void close() {
+    }
+
+  }
+
+}
@@ -7,6 +7,7 @@ import java.util.Map;
 import com.wavefront.sdk.common.application.ApplicationTags;
 
 import org.springframework.boot.json.BasicJsonParser;
+import org.springframework.boot.json.JsonParser;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -17,7 +18,8 @@ import org.springframework.web.util.UriComponentsBuilder;
 
 /**
  * Manage a Wavefront {@linkplain AccountInfo account} based on an
- * {@link ApplicationTags}.
+ * {@link ApplicationTags}. An instance is thread-safe and should be reused so that
+ * connections to the cluster can be kept alive.
  *
  * @author Stephane Nicoll
  */
@@ -25,6 +27,8 @@ public class AccountManagementClient {
 
   private final RestTemplate restTemplate;
 
+  private final JsonParser jsonParser = new BasicJsonParser();
+
   private final String version;
 
   /**
@@ -53,7 +57,7 @@ public class AccountManagementClient {
     URI requestUri = accountManagementUri(clusterUri, applicationTags);
     try {
       String json = this.restTemplate.postForObject(requestUri, null, String.class);
-      Map<String, Object> content = new BasicJsonParser().parseMap(json);
+      Map<String, Object> content = this.jsonParser.parseMap(json);
       return new AccountInfo((String) content.get("token"),
           determineLoginUrl(clusterUri, (String) content.get("url")));
     } catch (HttpClientErrorException ex) {
@@ -78,7 +82,7 @@ public class AccountManagementClient {
     try {
       String json = this.restTemplate
           .exchange(requestUri, HttpMethod.GET, new HttpEntity<>(headers), String.class).getBody();
-      Map<String, Object> content = new BasicJsonParser().parseMap(json);
+      Map<String, Object> content = this.jsonParser.parseMap(json);
       return new AccountInfo(apiToken, determineLoginUrl(clusterUri, (String) content.get("url")));
     } catch (HttpClientErrorException ex) {
       throw new AccountManagementFailedException(ex.getResponseBodyAsString());
@@ -0,0 +1,63 @@
+package com.wavefront.spring.actuate;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * A {@link Supplier} of the dashboard url that coalesces concurrent lookups so that
+ * callers share a single in-flight request. A resolved url is never reused: it is a
+ * one-time login link, so the next lookup retrieves a new one.
+ */
+class CoalescingDashboardUrlSupplier implements Supplier<URI> {
+
+  private final Supplier<URI> delegate;
+
+  private CompletableFuture<URI> lookup;
+
+  CoalescingDashboardUrlSupplier(Supplier<URI> delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public URI get() {
+    CompletableFuture<URI> lookup;
+    boolean owner = false;
+    synchronized (this) {
+      if (this.lookup == null) {
+        this.lookup = new CompletableFuture<>();
+        owner = true;
+      }
+      lookup = this.lookup;
+    }
+    if (owner) {
+      resolve(lookup);
+    }
+    try {
+      return lookup.join();
+    }
+    catch (CompletionException ex) {
+      throw (ex.getCause() instanceof RuntimeException) ? (RuntimeException) ex.getCause() : ex;
+    }
+  }
+
+  private void resolve(CompletableFuture<URI> lookup) {
+    try {
+      URI dashboardUrl = this.delegate.get();
+      complete(lookup);
+      lookup.complete(dashboardUrl);
+    }
+    catch (RuntimeException ex) {
+      complete(lookup);
+      lookup.completeExceptionally(ex);
+    }
+  }
+
+  private synchronized void complete(CompletableFuture<URI> lookup) {
+    if (this.lookup == lookup) {
+      this.lookup = null;
+    }
+  }
+
+}
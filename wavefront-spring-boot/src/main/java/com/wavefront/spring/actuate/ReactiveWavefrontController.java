@@ -0,0 +1,34 @@
+package com.wavefront.spring.actuate;
+
+import java.net.URI;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.boot.actuate.endpoint.web.annotation.ControllerEndpoint;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+
+/**
+ * A reactive variant of {@link WavefrontController} that does not block the calling
+ * thread while the dashboard url is retrieved.
+ */
+@ControllerEndpoint(id = "wavefront")
+public class ReactiveWavefrontController {
+
+  private final Supplier<URI> dashboardUrlSupplier;
+
+  ReactiveWavefrontController(Supplier<URI> dashboardUrlSupplier) {
+    this.dashboardUrlSupplier = dashboardUrlSupplier;
+  }
+
+  @GetMapping("/")
+  public Mono<ResponseEntity<Void>> dashboard() {
+    return Mono.fromSupplier(this.dashboardUrlSupplier).subscribeOn(Schedulers.boundedElastic())
+        .map((dashboardUrl) -> ResponseEntity.status(HttpStatus.FOUND)
+            .headers((headers) -> headers.setLocation(dashboardUrl)).<Void>build());
+  }
+
+}
@@ -1,6 +1,7 @@
 package com.wavefront.spring.actuate;
 
 import java.net.URI;
+import java.util.function.Supplier;
 
 import com.wavefront.sdk.common.Utils;
 import com.wavefront.sdk.common.application.ApplicationTags;
@@ -8,13 +9,17 @@ import com.wavefront.spring.account.AccountManagementClient;
 import com.wavefront.spring.autoconfigure.WavefrontAutoConfiguration;
 import com.wavefront.spring.autoconfigure.WavefrontProperties;
 import io.micrometer.wavefront.WavefrontConfig;
+import reactor.core.publisher.Mono;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.boot.autoconfigure.web.client.RestTemplateAutoConfiguration;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
@@ -28,28 +33,51 @@ import org.springframework.web.client.RestTemplate;
  */
 @Configuration(proxyBeanMethods = false)
 @ConditionalOnClass({ RestTemplate.class, WavefrontConfig.class, ApplicationTags.class })
-@ConditionalOnBean({ RestTemplateBuilder.class, WavefrontConfig.class, ApplicationTags.class })
+@ConditionalOnBean({ WavefrontConfig.class, ApplicationTags.class })
 @ConditionalOnAvailableEndpoint(endpoint = WavefrontController.class)
 @AutoConfigureAfter({ WavefrontAutoConfiguration.class, RestTemplateAutoConfiguration.class })
 public class WavefrontEndpointAutoConfiguration {
 
   @Bean
   @ConditionalOnMissingBean
-  public AccountManagementClient accountManagementClient(RestTemplateBuilder restTemplateBuilder) {
-    return new AccountManagementClient(restTemplateBuilder,
+  public AccountManagementClient accountManagementClient(ObjectProvider<RestTemplateBuilder> restTemplateBuilder) {
+    return new AccountManagementClient(restTemplateBuilder.getIfAvailable(RestTemplateBuilder::new),
         Utils.getVersion("wavefront-spring-boot").orElse(null));
   }
 
   @Bean
-  @ConditionalOnMissingBean
+  @ConditionalOnMissingBean(value = WavefrontController.class, name = "reactiveWavefrontController")
   WavefrontController wavefrontController(WavefrontProperties properties,
       AccountManagementClient accountManagementClient, WavefrontConfig wavefrontConfig,
       ApplicationTags applicationTags) {
+    return new WavefrontController(createDashboardUrlSupplier(properties, accountManagementClient,
+        wavefrontConfig, applicationTags));
+  }
+
+  private static Supplier<URI> createDashboardUrlSupplier(WavefrontProperties properties,
+      AccountManagementClient accountManagementClient, WavefrontConfig wavefrontConfig,
+      ApplicationTags applicationTags) {
     if (Boolean.TRUE.equals(properties.getFreemiumAccount())) {
-      return new WavefrontController(new OneTimeDashboardUrlSupplier(
+      return new CoalescingDashboardUrlSupplier(new OneTimeDashboardUrlSupplier(
           accountManagementClient, wavefrontConfig, applicationTags));
     }
-    return new WavefrontController(() -> URI.create(wavefrontConfig.uri()));
+    return () -> URI.create(wavefrontConfig.uri());
+  }
+
+  @Configuration(proxyBeanMethods = false)
+  @ConditionalOnClass(Mono.class)
+  @ConditionalOnWebApplication(type = Type.REACTIVE)
+  static class ReactiveWavefrontControllerConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    ReactiveWavefrontController reactiveWavefrontController(WavefrontProperties properties,
+        AccountManagementClient accountManagementClient, WavefrontConfig wavefrontConfig,
+        ApplicationTags applicationTags) {
+      return new ReactiveWavefrontController(createDashboardUrlSupplier(properties, accountManagementClient,
+          wavefrontConfig, applicationTags));
+    }
+
   }
 
 }
@@ -0,0 +1,72 @@
+package com.wavefront.spring.actuate;
+
+import java.time.Duration;
+
+import com.wavefront.spring.autoconfigure.DynamicSampler;
+import com.wavefront.spring.autoconfigure.DynamicSampler.Settings;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+/**
+ * An endpoint that exposes the sampling of the spans sent to Wavefront and changes it at
+ * runtime.
+ */
+@Endpoint(id = "wavefrontsampling")
+public class WavefrontSamplingEndpoint {
+
+  private final DynamicSampler sampler;
+
+  WavefrontSamplingEndpoint(DynamicSampler sampler) {
+    this.sampler = sampler;
+  }
+
+  @ReadOperation
+  public Settings sampling() {
+    return this.sampler.getSettings();
+  }
+
+  /**
+   * Update the sampling settings. A setting that is not specified keeps its current
+   * value, so that sampling can only be disabled by a {@link #reset() reset} to a
+   * configuration without sampling settings.
+   * @param probability the rate of traces whose spans are sampled
+   * @param duration the duration above which spans are sampled
+   * @return the settings now applied
+   * @throws InvalidEndpointRequestException if no setting is specified or a setting is
+   * invalid
+   */
+  @WriteOperation
+  public Settings update(@Nullable Double probability, @Nullable Duration duration) {
+    if (probability == null && duration == null) {
+      throw new InvalidEndpointRequestException("No sampling setting specified",
+          "No sampling setting specified, expected a probability or a duration");
+    }
+    Settings current = this.sampler.getSettings();
+    Settings settings;
+    try {
+      settings = Settings.of((probability != null) ? probability : current.getProbability(),
+          (duration != null) ? duration : current.getDuration());
+    }
+    catch (IllegalArgumentException ex) {
+      throw new InvalidEndpointRequestException(ex.getMessage(), ex.getMessage());
+    }
+    this.sampler.update(settings);
+    return settings;
+  }
+
+  /**
+   * Apply the configured sampling settings again.
+   * @return the settings now applied
+   */
+  @DeleteOperation
+  public Settings reset() {
+    this.sampler.reset();
+    return this.sampler.getSettings();
+  }
+
+}
@@ -0,0 +1,31 @@
+package com.wavefront.spring.actuate;
+
+import com.wavefront.spring.autoconfigure.DynamicSampler;
+import com.wavefront.spring.autoconfigure.WavefrontTracingOpenTracingAutoConfiguration;
+import com.wavefront.spring.autoconfigure.WavefrontTracingSleuthAutoConfiguration;
+
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for {@link WavefrontSamplingEndpoint}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnBean(DynamicSampler.class)
+@ConditionalOnAvailableEndpoint(endpoint = WavefrontSamplingEndpoint.class)
+@AutoConfigureAfter({ WavefrontTracingOpenTracingAutoConfiguration.class,
+    WavefrontTracingSleuthAutoConfiguration.class })
+public class WavefrontSamplingEndpointAutoConfiguration {
+
+  @Bean
+  @ConditionalOnMissingBean
+  WavefrontSamplingEndpoint wavefrontSamplingEndpoint(DynamicSampler sampler) {
+    return new WavefrontSamplingEndpoint(sampler);
+  }
+
+}
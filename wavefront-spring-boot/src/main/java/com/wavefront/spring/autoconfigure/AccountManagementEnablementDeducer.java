@@ -1,12 +1,24 @@
 package com.wavefront.spring.autoconfigure;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Utility to deduce if the {@link AccountManagementEnvironmentPostProcessor} should be
  * enabled in the current context.
+ * <p>
+ * On Java 9 and later, the stack of the current thread is walked lazily using
+ * {@code StackWalker} so that only the frames up to the first match are materialized.
+ * Whether the class of a frame belongs to a test framework is cached for the lifetime of
+ * the JVM, so that each class name is only compared to the skipped prefixes once.
  *
  * @author Madhura Bhave
  */
@@ -23,6 +35,8 @@ final class AccountManagementEnablementDeducer {
     SKIPPED_STACK_ELEMENTS = Collections.unmodifiableSet(skipped);
   }
 
+  private static final Map<String, Boolean> skippedClassNames = new ConcurrentHashMap<>();
+
   private AccountManagementEnablementDeducer() {
   }
 
@@ -33,21 +47,107 @@ final class AccountManagementEnablementDeducer {
    * @return {@code true} if account management should be enabled
    */
   public static boolean shouldEnable(Thread thread) {
+    return !hasSkippedStackElement(thread);
+  }
+
+  /**
+   * Checks if the stack of the specified thread has a frame that should cause account
+   * management to be disabled.
+   * @param thread the thread to check
+   * @return {@code true} if a skipped stack element was found
+   */
+  static boolean hasSkippedStackElement(Thread thread) {
+    if (StackWalkerSupport.isAvailable() && thread == Thread.currentThread()) {
+      return StackWalkerSupport.hasSkippedStackElement();
+    }
     for (StackTraceElement element : thread.getStackTrace()) {
-      if (isSkippedStackElement(element)) {
-        return false;
+      if (isSkippedClassName(element.getClassName())) {
+        return true;
       }
     }
-    return true;
+    return false;
+  }
+
+  private static boolean isSkippedClassName(String className) {
+    return skippedClassNames.computeIfAbsent(className, AccountManagementEnablementDeducer::startsWithSkipped);
   }
 
-  private static boolean isSkippedStackElement(StackTraceElement element) {
+  private static boolean startsWithSkipped(String className) {
     for (String skipped : SKIPPED_STACK_ELEMENTS) {
-      if (element.getClassName().startsWith(skipped)) {
+      if (className.startsWith(skipped)) {
         return true;
       }
     }
     return false;
   }
 
+  /**
+   * Access to {@code java.lang.StackWalker} as this project targets Java 8. The method
+   * handles are resolved once, so walking the stack does not use reflection.
+   */
+  private static final class StackWalkerSupport {
+
+    private static final MethodHandle walk;
+
+    private static final MethodHandle getClassName;
+
+    static {
+      MethodHandle walkHandle = null;
+      MethodHandle getClassNameHandle = null;
+      try {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        Class<?> stackWalkerType = Class.forName("java.lang.StackWalker");
+        Class<?> stackFrameType = Class.forName("java.lang.StackWalker$StackFrame");
+        Object stackWalker = lookup.findStatic(stackWalkerType, "getInstance", MethodType.methodType(stackWalkerType))
+            .invoke();
+        walkHandle = lookup.findVirtual(stackWalkerType, "walk", MethodType.methodType(Object.class, Function.class))
+            .bindTo(stackWalker);
+        getClassNameHandle = lookup.findVirtual(stackFrameType, "getClassName", MethodType.methodType(String.class))
+            .asType(MethodType.methodType(String.class, Object.class));
+      }
+      catch (Throwable ex) {
+        walkHandle = null;
+        getClassNameHandle = null;
+      }
+      walk = walkHandle;
+      getClassName = getClassNameHandle;
+    }
+
+    private static final Function<Stream<?>, Boolean> walker = (frames) -> frames
+        .map(StackWalkerSupport::getClassName).anyMatch(AccountManagementEnablementDeducer::isSkippedClassName);
+
+    private StackWalkerSupport() {
+    }
+
+    static boolean isAvailable() {
+      return walk != null;
+    }
+
+    static boolean hasSkippedStackElement() {
+      try {
+        Object result = walk.invokeExact(walker);
+        return (Boolean) result;
+      }
+      catch (RuntimeException | Error ex) {
+        throw ex;
+      }
+      catch (Throwable ex) {
+        throw new IllegalStateException("Failed to walk stack", ex);
+      }
+    }
+
+    private static String getClassName(Object frame) {
+      try {
+        return (String) getClassName.invokeExact(frame);
+      }
+      catch (RuntimeException | Error ex) {
+        throw ex;
+      }
+      catch (Throwable ex) {
+        throw new IllegalStateException("Failed to read stack frame", ex);
+      }
+    }
+
+  }
+
 }
@@ -9,7 +9,9 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import com.wavefront.sdk.common.Utils;
@@ -17,6 +19,7 @@ import com.wavefront.sdk.common.application.ApplicationTags;
 import com.wavefront.spring.account.AccountInfo;
 import com.wavefront.spring.account.AccountManagementClient;
 
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.context.event.ApplicationFailedEvent;
 import org.springframework.boot.context.event.ApplicationPreparedEvent;
@@ -26,10 +29,13 @@ import org.springframework.boot.env.EnvironmentPostProcessor;
 import org.springframework.boot.logging.DeferredLog;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.MapPropertySource;
 import org.springframework.core.io.PathResource;
 import org.springframework.core.io.Resource;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.util.StreamUtils;
 import org.springframework.util.StringUtils;
 
@@ -37,6 +43,11 @@ import org.springframework.util.StringUtils;
  * An {@link EnvironmentPostProcessor} that auto-negotiates an api token for Wavefront if
  * necessary. If an account was already provisioned and the api token is available from
  * disk, retrieves a one time link url to the Wavefront dashboard.
+ * <p>
+ * If {@code wavefront.async-account-provisioning} is set, the account is negotiated in the
+ * background so that startup does not wait for the account management API. The api token
+ * of a new account is then exposed by a {@link DeferredApiTokenPropertySource} once
+ * available.
  *
  * @author Stephane Nicoll
  */
@@ -51,11 +62,21 @@ class AccountManagementEnvironmentPostProcessor
 
   private static final String FREEMIUM_ACCOUNT_PROPERTY = "wavefront.freemium-account";
 
+  private static final String ASYNC_ACCOUNT_PROVISIONING_PROPERTY = "wavefront.async-account-provisioning";
+
   private static final String DEFAULT_CLUSTER_URI = "https://wavefront.surf";
 
+  private static final String ACCOUNT_MANAGEMENT_CLIENT_BEAN_NAME = "accountManagementClient";
+
+  private static final String ACCOUNT_LOOKUP_STEP = "wavefront.account.lookup";
+
+  private static final String ACCOUNT_PROVISIONING_STEP = "wavefront.account.provision";
+
   private final DeferredLog logger = new DeferredLog();
 
-  private Supplier<String> accountConfigurationOutcome;
+  private CompletableFuture<Supplier<String>> accountConfigurationOutcome;
+
+  private AccountManagementClient accountManagementClient;
 
   @Override
   public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
@@ -64,21 +85,57 @@ class AccountManagementEnvironmentPostProcessor
     }
     application.addListeners(this);
     String clusterUri = environment.getProperty(URI_PROPERTY, DEFAULT_CLUSTER_URI);
+    boolean async = environment.getProperty(ASYNC_ACCOUNT_PROVISIONING_PROPERTY, Boolean.class, false);
+    ApplicationStartup applicationStartup = (application.getApplicationStartup() != null)
+        ? application.getApplicationStartup() : ApplicationStartup.DEFAULT;
     if (!isApiTokenRequired(environment)) {
-      this.accountConfigurationOutcome = validateExistingConfiguration(environment, clusterUri);
+      this.accountConfigurationOutcome = run(async, applicationStartup, ACCOUNT_LOOKUP_STEP,
+          () -> validateExistingConfiguration(environment, clusterUri));
       return;
     }
     Resource localApiTokenResource = getLocalApiTokenResource();
     String existingApiToken = readExistingApiToken(localApiTokenResource);
     if (existingApiToken != null) {
-      this.accountConfigurationOutcome = configureExistingAccount(environment, clusterUri,
-          existingApiToken, localApiTokenResource);
+      this.logger.debug("Existing Wavefront api token found from " + localApiTokenResource);
+      registerApiToken(environment, existingApiToken);
+      this.accountConfigurationOutcome = run(async, applicationStartup, ACCOUNT_LOOKUP_STEP,
+          () -> configureExistingAccount(environment, clusterUri, existingApiToken));
+    }
+    else if (async) {
+      CompletableFuture<String> apiToken = new CompletableFuture<>();
+      environment.getPropertySources().addLast(new DeferredApiTokenPropertySource(
+          getWavefrontSettings(environment), API_TOKEN_PROPERTY, apiToken));
+      this.accountConfigurationOutcome = run(true, applicationStartup, ACCOUNT_PROVISIONING_STEP,
+          () -> configureNewAccount(environment, clusterUri, localApiTokenResource, apiToken::complete))
+          .whenComplete((outcome, ex) -> apiToken.completeExceptionally(
+              new IllegalStateException("No Wavefront api token could be negotiated")));
     }
     else {
-      this.accountConfigurationOutcome = configureNewAccount(environment, clusterUri, localApiTokenResource);
+      this.accountConfigurationOutcome = run(false, applicationStartup, ACCOUNT_PROVISIONING_STEP,
+          () -> configureNewAccount(environment, clusterUri, localApiTokenResource,
+              (apiToken) -> registerApiToken(environment, apiToken)));
     }
   }
 
+  private CompletableFuture<Supplier<String>> run(boolean async, ApplicationStartup applicationStartup,
+      String stepName, Supplier<Supplier<String>> accountConfiguration) {
+    if (!async) {
+      // Only record synchronous calls as background calls are not part of the startup
+      StartupStep step = applicationStartup.start(stepName);
+      try {
+        return CompletableFuture.completedFuture(accountConfiguration.get());
+      }
+      finally {
+        step.end();
+      }
+    }
+    return CompletableFuture.supplyAsync(accountConfiguration, (task) -> {
+      Thread thread = new Thread(task, "wavefront-account-management");
+      thread.setDaemon(true);
+      thread.start();
+    });
+  }
+
   private boolean shouldRun(ConfigurableEnvironment environment) {
     if (environment.getPropertySources().contains("bootstrap")) {
       // Do not run in the bootstrap phase as the user configuration is not available yet
@@ -98,10 +155,15 @@ class AccountManagementEnvironmentPostProcessor
   public void onApplicationEvent(SpringApplicationEvent event) {
     if (event instanceof ApplicationPreparedEvent) {
       this.logger.switchTo(AccountManagementEnvironmentPostProcessor.class);
+      registerAccountManagementClient(((ApplicationPreparedEvent) event).getApplicationContext());
     }
     if (event instanceof ApplicationStartedEvent || event instanceof ApplicationFailedEvent) {
       if (this.accountConfigurationOutcome != null) {
-        System.out.println(this.accountConfigurationOutcome.get());
+        this.accountConfigurationOutcome.thenAccept((outcome) -> {
+          if (outcome != null) {
+            System.out.println(outcome.get());
+          }
+        });
       }
     }
   }
@@ -142,10 +204,8 @@ class AccountManagementEnvironmentPostProcessor
   }
 
   private Supplier<String> configureExistingAccount(ConfigurableEnvironment environment, String clusterUri,
-      String apiToken, Resource localApiTokenResource) {
+      String apiToken) {
     try {
-      this.logger.debug("Existing Wavefront api token found from " + localApiTokenResource);
-      registerApiToken(environment, apiToken);
       AccountInfo accountInfo = invokeAccountManagementClient(environment,
           (client, applicationTags) -> getExistingAccount(client, clusterUri, applicationTags, apiToken));
       return accountManagementSuccess("Your existing Wavefront account information has been restored from disk.",
@@ -159,11 +219,11 @@ class AccountManagementEnvironmentPostProcessor
   }
 
   private Supplier<String> configureNewAccount(ConfigurableEnvironment environment, String clusterUri,
-      Resource localApiTokenResource) {
+      Resource localApiTokenResource, Consumer<String> apiTokenRegistrar) {
     try {
       AccountInfo accountInfo = invokeAccountManagementClient(environment,
           (client, applicationInfo) -> provisionAccount(client, clusterUri, applicationInfo));
-      registerApiToken(environment, accountInfo.getApiToken());
+      apiTokenRegistrar.accept(accountInfo.getApiToken());
       writeApiTokenToDisk(localApiTokenResource, accountInfo.getApiToken());
       return accountManagementSuccess(
           "A Wavefront account has been provisioned successfully and the API token has been saved to disk.",
@@ -219,23 +279,42 @@ class AccountManagementEnvironmentPostProcessor
 
   private AccountInfo invokeAccountManagementClient(ConfigurableEnvironment environment,
       BiFunction<AccountManagementClient, ApplicationTags, AccountInfo> accountProvider) {
-    RestTemplateBuilder restTemplateBuilder = new RestTemplateBuilder();
-    AccountManagementClient client = new AccountManagementClient(restTemplateBuilder,
-        Utils.getVersion("wavefront-spring-boot").orElse(null));
     ApplicationTags applicationTags = new ApplicationTagsFactory().createFromEnvironment(environment);
-    return accountProvider.apply(client, applicationTags);
+    return accountProvider.apply(getAccountManagementClient(), applicationTags);
+  }
+
+  private synchronized AccountManagementClient getAccountManagementClient() {
+    if (this.accountManagementClient == null) {
+      this.accountManagementClient = new AccountManagementClient(new RestTemplateBuilder(),
+          Utils.getVersion("wavefront-spring-boot").orElse(null));
+    }
+    return this.accountManagementClient;
+  }
+
+  private void registerAccountManagementClient(ConfigurableApplicationContext context) {
+    // Share the client, and its connections, with the Wavefront actuator endpoint
+    ConfigurableListableBeanFactory beanFactory = context.getBeanFactory();
+    if (context.getEnvironment().getProperty(FREEMIUM_ACCOUNT_PROPERTY, Boolean.class, false)
+        && !beanFactory.containsBean(ACCOUNT_MANAGEMENT_CLIENT_BEAN_NAME)) {
+      beanFactory.registerSingleton(ACCOUNT_MANAGEMENT_CLIENT_BEAN_NAME, getAccountManagementClient());
+    }
   }
 
   private void registerApiToken(ConfigurableEnvironment environment, String apiToken) {
+    Map<String, Object> wavefrontSettings = getWavefrontSettings(environment);
+    wavefrontSettings.put(API_TOKEN_PROPERTY, apiToken);
+    MapPropertySource wavefrontPropertySource = new MapPropertySource("wavefront", wavefrontSettings);
+    environment.getPropertySources().addLast(wavefrontPropertySource);
+  }
+
+  private Map<String, Object> getWavefrontSettings(ConfigurableEnvironment environment) {
     Map<String, Object> wavefrontSettings = new HashMap<>();
     wavefrontSettings.put(FREEMIUM_ACCOUNT_PROPERTY, true);
-    wavefrontSettings.put(API_TOKEN_PROPERTY, apiToken);
     String configuredClusterUri = environment.getProperty(URI_PROPERTY);
     if (!StringUtils.hasText(configuredClusterUri)) {
       wavefrontSettings.put(URI_PROPERTY, DEFAULT_CLUSTER_URI);
     }
-    MapPropertySource wavefrontPropertySource = new MapPropertySource("wavefront", wavefrontSettings);
-    environment.getPropertySources().addLast(wavefrontPropertySource);
+    return wavefrontSettings;
   }
 
   protected boolean shouldEnableAccountManagement(Thread thread) {
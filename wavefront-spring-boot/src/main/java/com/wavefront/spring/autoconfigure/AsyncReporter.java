@@ -0,0 +1,249 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.wavefront.opentracing.WavefrontSpan;
+import com.wavefront.opentracing.reporting.CompositeReporter;
+import com.wavefront.opentracing.reporting.Reporter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A {@link CompositeReporter} that hands finished spans to its reporters in the
+ * background, so that a slow reporter does not block the thread that finishes a span.
+ * Each reporter has its own lane: a bounded queue and a thread that takes spans from it
+ * in batches. A slow reporter therefore does not hold back the others. Spans are dropped
+ * from the lane of a reporter whose queue is full.
+ * <p>
+ * The reporters remain available through {@link #getReporters()}, as the tracer relies on
+ * it to find the reporter that sends spans to Wavefront.
+ */
+class AsyncReporter extends CompositeReporter implements MeterBinder {
+
+  private static final Log logger = LogFactory.getLog(AsyncReporter.class);
+
+  // how long a reporting thread waits for a span before checking whether it should stop
+  private static final long POLL_TIMEOUT_MILLIS = 100;
+
+  private final List<Lane> lanes;
+
+  private final LongAdder received = new LongAdder();
+
+  private volatile boolean started;
+
+  private volatile boolean stopped;
+
+  AsyncReporter(int maxQueueSize, int batchSize, Reporter... reporters) {
+    super(reporters);
+    List<Lane> lanes = new ArrayList<>(reporters.length);
+    String[] names = getNames(reporters);
+    for (int i = 0; i < reporters.length; i++) {
+      lanes.add(new Lane(names[i], reporters[i], maxQueueSize, batchSize));
+    }
+    this.lanes = Collections.unmodifiableList(lanes);
+  }
+
+  /**
+   * Return the name of each reporter, used to tag its meters: the simple name of its
+   * class, suffixed with an index if several reporters have the same class.
+   * @param reporters the reporters
+   * @return the names, in the order of the reporters
+   */
+  static String[] getNames(Reporter... reporters) {
+    String[] names = new String[reporters.length];
+    Map<String, Integer> indexes = new HashMap<>();
+    for (int i = 0; i < reporters.length; i++) {
+      String name = reporters[i].getClass().getSimpleName();
+      int index = indexes.merge(name, 1, Integer::sum);
+      names[i] = (index > 1) ? name + "-" + index : name;
+    }
+    return names;
+  }
+
+  @Override
+  public void report(WavefrontSpan span) {
+    if (!this.started) {
+      start();
+    }
+    this.received.increment();
+    for (Lane lane : this.lanes) {
+      lane.offer(span, this.stopped);
+    }
+  }
+
+  /**
+   * Report the spans queued so far and flush the reporters.
+   */
+  @Override
+  public void flush() {
+    for (Lane lane : this.lanes) {
+      lane.drain();
+    }
+    super.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      if (this.stopped) {
+        return;
+      }
+      this.stopped = true;
+    }
+    for (Lane lane : this.lanes) {
+      lane.stop(this.started);
+    }
+    super.close();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("reporter.spans.received", this.received, LongAdder::sum).register(registry);
+    for (Lane lane : this.lanes) {
+      lane.bindTo(registry);
+    }
+  }
+
+  private synchronized void start() {
+    if (this.started || this.stopped) {
+      return;
+    }
+    for (Lane lane : this.lanes) {
+      lane.thread.start();
+    }
+    this.started = true;
+  }
+
+  /**
+   * A reporter with its own queue and reporting thread.
+   */
+  private static final class Lane implements Runnable {
+
+    private final String name;
+
+    private final Reporter reporter;
+
+    private final BlockingQueue<WavefrontSpan> queue;
+
+    private final int batchSize;
+
+    private final Thread thread;
+
+    private final LongAdder reported = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private volatile boolean stopped;
+
+    Lane(String name, Reporter reporter, int maxQueueSize, int batchSize) {
+      this.name = name;
+      this.reporter = reporter;
+      this.queue = new LinkedBlockingQueue<>(maxQueueSize);
+      this.batchSize = batchSize;
+      this.thread = new Thread(this, "wavefrontAsyncSpanReporter-" + name);
+      this.thread.setDaemon(true);
+    }
+
+    void offer(WavefrontSpan span, boolean stopped) {
+      if (stopped || !this.queue.offer(span)) {
+        this.dropped.increment();
+        if (logger.isDebugEnabled()) {
+          logger.debug("Queue of " + this.name + " full, dropping span: " + span);
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      List<WavefrontSpan> batch = new ArrayList<>(this.batchSize);
+      while (!this.stopped) {
+        try {
+          WavefrontSpan span = this.queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+          if (span != null) {
+            batch.add(span);
+            this.queue.drainTo(batch, this.batchSize - 1);
+            report(batch);
+          }
+        }
+        catch (InterruptedException ex) {
+          if (logger.isDebugEnabled()) {
+            logger.debug("Reporting thread of " + this.name + " interrupted");
+          }
+        }
+        catch (Throwable ex) {
+          logger.warn("Error reporting spans with " + this.name, ex);
+        }
+        finally {
+          batch.clear();
+        }
+      }
+    }
+
+    void drain() {
+      List<WavefrontSpan> batch = new ArrayList<>(this.batchSize);
+      while (this.queue.drainTo(batch, this.batchSize) > 0) {
+        report(batch);
+        batch.clear();
+      }
+    }
+
+    void stop(boolean started) {
+      this.stopped = true;
+      if (started) {
+        try {
+          // let the reporting thread finish the batch it is reporting, and wait for 5 secs max
+          this.thread.join(5000);
+        }
+        catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      drain();
+    }
+
+    void bindTo(MeterRegistry registry) {
+      Gauge.builder("reporter.queue.size", this.queue, BlockingQueue::size).tag("reporter", this.name)
+          .register(registry);
+      Gauge.builder("reporter.queue.remaining_capacity", this.queue, BlockingQueue::remainingCapacity)
+          .tag("reporter", this.name).register(registry);
+      FunctionCounter.builder("reporter.spans.reported", this.reported, LongAdder::sum).tag("reporter", this.name)
+          .register(registry);
+      FunctionCounter.builder("reporter.spans.dropped", this.dropped, LongAdder::sum).tag("reporter", this.name)
+          .register(registry);
+      FunctionCounter.builder("reporter.errors", this.errors, LongAdder::sum).tag("reporter", this.name)
+          .register(registry);
+    }
+
+    private void report(List<WavefrontSpan> batch) {
+      for (WavefrontSpan span : batch) {
+        try {
+          this.reporter.report(span);
+          this.reported.increment();
+        }
+        catch (IOException | RuntimeException ex) {
+          this.errors.increment();
+          if (logger.isDebugEnabled()) {
+            logger.debug("Error reporting span " + span + " with " + this.name, ex);
+          }
+        }
+      }
+    }
+
+  }
+
+}
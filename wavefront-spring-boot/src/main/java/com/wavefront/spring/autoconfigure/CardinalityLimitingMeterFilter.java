@@ -0,0 +1,151 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.wavefront.spring.autoconfigure.WavefrontProperties.Metrics.CardinalityLimit;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.config.MeterFilterReply;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A {@link MeterFilter} that caps the number of series a registry can hold, both globally
+ * and per meter name. Once a limit is reached, new series are either denied or folded into
+ * an overflow series, depending on the configured {@link CardinalityLimit.Mode mode}.
+ *
+ * <p>Micrometer invokes filters on every lookup so series that have been admitted once
+ * are remembered and always accepted. Series are never forgotten as meters that are
+ * removed from the registry are not reported to filters.
+ */
+final class CardinalityLimitingMeterFilter implements MeterFilter {
+
+  private static final Log logger = LogFactory.getLog(CardinalityLimitingMeterFilter.class);
+
+  static final String OVERFLOW_TAG_VALUE = "overflow";
+
+  private final int maxSeries;
+
+  private final int maxSeriesPerMeter;
+
+  private final CardinalityLimit.Mode mode;
+
+  private final Set<String> preservedTagKeys;
+
+  private final Map<Meter.Id, Boolean> admitted = new ConcurrentHashMap<>();
+
+  private final Map<String, AtomicInteger> seriesPerMeter = new ConcurrentHashMap<>();
+
+  private final Set<String> limitedMeters = ConcurrentHashMap.newKeySet();
+
+  private final LongAdder rejected = new LongAdder();
+
+  /**
+   * Create an instance.
+   * @param limit the limits to apply
+   * @param preservedTagKeys the keys of the tags whose value is kept in overflow series
+   */
+  CardinalityLimitingMeterFilter(CardinalityLimit limit, Set<String> preservedTagKeys) {
+    this.maxSeries = limit.getMaxSeries();
+    this.maxSeriesPerMeter = limit.getMaxSeriesPerMeter();
+    this.mode = limit.getMode();
+    this.preservedTagKeys = Collections.unmodifiableSet(preservedTagKeys);
+  }
+
+  @Override
+  public Meter.Id map(Meter.Id id) {
+    if (this.mode != CardinalityLimit.Mode.OVERFLOW || admit(id)) {
+      return id;
+    }
+    Meter.Id overflowId = id.replaceTags(overflowTags(id));
+    admitOverflow(overflowId);
+    return overflowId;
+  }
+
+  @Override
+  public MeterFilterReply accept(Meter.Id id) {
+    if (this.mode != CardinalityLimit.Mode.DENY || admit(id)) {
+      return MeterFilterReply.NEUTRAL;
+    }
+    return MeterFilterReply.DENY;
+  }
+
+  /**
+   * Return the number of registrations that exceeded a limit.
+   * @return the number of rejected registrations
+   */
+  long getRejectedCount() {
+    return this.rejected.sum();
+  }
+
+  /**
+   * Return the number of series that have been admitted so far.
+   * @return the number of series
+   */
+  int getSeriesCount() {
+    return this.admitted.size();
+  }
+
+  private boolean admit(Meter.Id id) {
+    if (this.admitted.containsKey(id)) {
+      return true;
+    }
+    synchronized (this.admitted) {
+      if (this.admitted.containsKey(id)) {
+        return true;
+      }
+      AtomicInteger meterSeries = this.seriesPerMeter.computeIfAbsent(id.getName(),
+          (name) -> new AtomicInteger());
+      if (this.admitted.size() >= this.maxSeries || meterSeries.get() >= this.maxSeriesPerMeter) {
+        reject(id);
+        return false;
+      }
+      meterSeries.incrementAndGet();
+      this.admitted.put(id, Boolean.TRUE);
+      return true;
+    }
+  }
+
+  /**
+   * Record an overflow series. It is counted like any other series, but regardless of
+   * the limits as it is what absorbs the series that exceeded them.
+   * @param overflowId the id of the overflow series
+   */
+  private void admitOverflow(Meter.Id overflowId) {
+    if (this.admitted.containsKey(overflowId)) {
+      return;
+    }
+    synchronized (this.admitted) {
+      if (this.admitted.putIfAbsent(overflowId, Boolean.TRUE) == null) {
+        this.seriesPerMeter.computeIfAbsent(overflowId.getName(), (name) -> new AtomicInteger()).incrementAndGet();
+      }
+    }
+  }
+
+  private void reject(Meter.Id id) {
+    this.rejected.increment();
+    if (this.limitedMeters.add(id.getName()) && logger.isWarnEnabled()) {
+      logger.warn(String.format("Reached the series limit for meter '%s' (%s per meter, %s in total), "
+          + "further series are handled using mode '%s'", id.getName(), this.maxSeriesPerMeter,
+          this.maxSeries, this.mode.name().toLowerCase(Locale.ROOT)));
+    }
+  }
+
+  private List<Tag> overflowTags(Meter.Id id) {
+    List<Tag> tags = new ArrayList<>();
+    for (Tag tag : id.getTagsAsIterable()) {
+      tags.add(this.preservedTagKeys.contains(tag.getKey()) ? tag : Tag.of(tag.getKey(), OVERFLOW_TAG_VALUE));
+    }
+    return tags;
+  }
+
+}
@@ -0,0 +1,169 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.wavefront.sdk.common.WavefrontSender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import static com.wavefront.sdk.common.Constants.DELTA_PREFIX;
+import static com.wavefront.sdk.common.Constants.DELTA_PREFIX_2;
+
+/**
+ * A {@link WavefrontSender} that only forwards metric points whose value changed since
+ * the series was last sent. Unchanged points are sent again every {@code fullRefreshSteps}
+ * steps so that series do not go stale. Delta counters are always sent as each point
+ * carries an increment rather than a value.
+ */
+final class ChangedOnlyWavefrontSender extends DelegatingWavefrontSender implements MeterBinder {
+
+  private final long stepMillis;
+
+  private final int fullRefreshSteps;
+
+  private final Map<Series, SeriesState> series = new ConcurrentHashMap<>();
+
+  private final AtomicLong lastEvictionStep = new AtomicLong();
+
+  private final LongAdder pointsSent = new LongAdder();
+
+  private final LongAdder pointsSuppressed = new LongAdder();
+
+  private final LongAdder bytesSent = new LongAdder();
+
+  ChangedOnlyWavefrontSender(WavefrontSender delegate, Duration step, int fullRefreshSteps) {
+    super(delegate);
+    this.stepMillis = step.toMillis();
+    this.fullRefreshSteps = Math.max(fullRefreshSteps, 1);
+  }
+
+  @Override
+  public void sendMetric(String name, double value, Long timestamp, String source, Map<String, String> tags)
+      throws IOException {
+    if (!isDeltaCounter(name)) {
+      long step = ((timestamp != null) ? timestamp : System.currentTimeMillis()) / this.stepMillis;
+      SeriesState state = this.series.computeIfAbsent(new Series(name, source, tags), (key) -> new SeriesState());
+      boolean send = state.update(value, step, this.fullRefreshSteps);
+      evictStaleSeries(step);
+      if (!send) {
+        this.pointsSuppressed.increment();
+        return;
+      }
+    }
+    super.sendMetric(name, value, timestamp, source, tags);
+    this.pointsSent.increment();
+    this.bytesSent.add(estimateSize(name, source, tags));
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("wavefront.metrics.publish.points", this.pointsSent, LongAdder::sum)
+        .tag("result", "sent").description("Number of metric points sent")
+        .register(registry);
+    FunctionCounter.builder("wavefront.metrics.publish.points", this.pointsSuppressed, LongAdder::sum)
+        .tag("result", "suppressed").description("Number of unchanged metric points that were not sent")
+        .register(registry);
+    FunctionCounter.builder("wavefront.metrics.publish.bytes", this.bytesSent, LongAdder::sum)
+        .baseUnit(BaseUnits.BYTES).description("Approximate size of the metric points sent")
+        .register(registry);
+  }
+
+  private boolean isDeltaCounter(String name) {
+    return name.startsWith(DELTA_PREFIX) || name.startsWith(DELTA_PREFIX_2);
+  }
+
+  private void evictStaleSeries(long step) {
+    long lastStep = this.lastEvictionStep.get();
+    if (step > lastStep && this.lastEvictionStep.compareAndSet(lastStep, step)) {
+      this.series.values().removeIf((state) -> state.isStale(step, this.fullRefreshSteps));
+    }
+  }
+
+  /**
+   * Estimate the size of a point in the Wavefront line protocol, that is
+   * {@code "name" value timestamp source="source" "key"="value"}.
+   */
+  private static int estimateSize(String name, String source, Map<String, String> tags) {
+    int size = name.length() + 2 + 32 + ((source != null) ? source.length() + 10 : 0);
+    if (tags != null) {
+      for (Map.Entry<String, String> tag : tags.entrySet()) {
+        size += tag.getKey().length() + tag.getValue().length() + 6;
+      }
+    }
+    return size;
+  }
+
+  private static final class Series {
+
+    private final String name;
+
+    private final String source;
+
+    private final Map<String, String> tags;
+
+    private final int hashCode;
+
+    Series(String name, String source, Map<String, String> tags) {
+      this.name = name;
+      this.source = source;
+      this.tags = tags;
+      this.hashCode = Objects.hash(name, source, tags);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (other == null || getClass() != other.getClass()) {
+        return false;
+      }
+      Series series = (Series) other;
+      return this.name.equals(series.name) && Objects.equals(this.source, series.source)
+          && Objects.equals(this.tags, series.tags);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hashCode;
+    }
+
+  }
+
+  private static final class SeriesState {
+
+    private boolean sent;
+
+    private double lastValue;
+
+    private long lastSentStep;
+
+    private volatile long lastSeenStep;
+
+    synchronized boolean update(double value, long step, int fullRefreshSteps) {
+      this.lastSeenStep = step;
+      if (this.sent && Double.compare(value, this.lastValue) == 0
+          && step - this.lastSentStep < fullRefreshSteps) {
+        return false;
+      }
+      this.sent = true;
+      this.lastValue = value;
+      this.lastSentStep = step;
+      return true;
+    }
+
+    boolean isStale(long step, int fullRefreshSteps) {
+      return step - this.lastSeenStep > fullRefreshSteps;
+    }
+
+  }
+
+}
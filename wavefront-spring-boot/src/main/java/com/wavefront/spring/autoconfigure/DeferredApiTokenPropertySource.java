@@ -0,0 +1,46 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.core.env.PropertySource;
+
+/**
+ * {@link PropertySource} for the Wavefront settings of an account that is provisioned
+ * in the background. The api token is only exposed once provisioning has completed.
+ *
+ * @see AccountManagementEnvironmentPostProcessor
+ */
+class DeferredApiTokenPropertySource extends PropertySource<Map<String, Object>> {
+
+  static final String NAME = "wavefront";
+
+  private final String apiTokenProperty;
+
+  private final CompletableFuture<String> apiToken;
+
+  DeferredApiTokenPropertySource(Map<String, Object> settings, String apiTokenProperty,
+      CompletableFuture<String> apiToken) {
+    super(NAME, settings);
+    this.apiTokenProperty = apiTokenProperty;
+    this.apiToken = apiToken;
+  }
+
+  /**
+   * Return the api token, completed once the account has been provisioned or
+   * exceptionally if provisioning failed.
+   * @return the api token
+   */
+  CompletableFuture<String> getApiToken() {
+    return this.apiToken;
+  }
+
+  @Override
+  public Object getProperty(String name) {
+    if (this.apiTokenProperty.equals(name)) {
+      return (this.apiToken.isDone() && !this.apiToken.isCompletedExceptionally()) ? this.apiToken.join() : null;
+    }
+    return this.source.get(name);
+  }
+
+}
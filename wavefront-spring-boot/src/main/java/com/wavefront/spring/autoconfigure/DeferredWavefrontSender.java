@@ -0,0 +1,142 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import com.wavefront.sdk.common.Pair;
+import com.wavefront.sdk.common.WavefrontSender;
+import com.wavefront.sdk.entities.histograms.HistogramGranularity;
+import com.wavefront.sdk.entities.tracing.SpanLog;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A {@link WavefrontSender} for a sender that is not available yet, typically because
+ * the api token is still being negotiated. Data sent before the sender is available, or
+ * after it failed to be created, is discarded.
+ */
+final class DeferredWavefrontSender implements WavefrontSender {
+
+  private static final Log logger = LogFactory.getLog(DeferredWavefrontSender.class);
+
+  private final CompletableFuture<WavefrontSender> sender;
+
+  private volatile boolean closed;
+
+  DeferredWavefrontSender(CompletableFuture<String> apiToken, Function<String, WavefrontSender> senderFactory) {
+    this.sender = apiToken.thenApply(senderFactory);
+    this.sender.thenAccept((sender) -> {
+      if (this.closed) {
+        closeQuietly(sender);
+      }
+    });
+  }
+
+  @Override
+  public String getClientId() {
+    WavefrontSender sender = getSender();
+    return (sender != null) ? sender.getClientId() : "deferred";
+  }
+
+  @Override
+  public void sendMetric(String name, double value, Long timestamp, String source, Map<String, String> tags)
+      throws IOException {
+    WavefrontSender sender = getSender();
+    if (sender != null) {
+      sender.sendMetric(name, value, timestamp, source, tags);
+    }
+  }
+
+  @Override
+  public void sendFormattedMetric(String point) throws IOException {
+    WavefrontSender sender = getSender();
+    if (sender != null) {
+      sender.sendFormattedMetric(point);
+    }
+  }
+
+  @Override
+  public void sendDistribution(String name, List<Pair<Double, Integer>> centroids,
+      Set<HistogramGranularity> histogramGranularities, Long timestamp, String source, Map<String, String> tags)
+      throws IOException {
+    WavefrontSender sender = getSender();
+    if (sender != null) {
+      sender.sendDistribution(name, centroids, histogramGranularities, timestamp, source, tags);
+    }
+  }
+
+  @Override
+  public void sendSpan(String name, long startMillis, long durationMillis, String source, UUID traceId,
+      UUID spanId, List<UUID> parents, List<UUID> followsFrom, List<Pair<String, String>> tags,
+      List<SpanLog> spanLogs) throws IOException {
+    WavefrontSender sender = getSender();
+    if (sender != null) {
+      sender.sendSpan(name, startMillis, durationMillis, source, traceId, spanId, parents, followsFrom, tags,
+          spanLogs);
+    }
+  }
+
+  @Override
+  public void sendEvent(String name, long startMillis, long endMillis, String source, Map<String, String> tags,
+      Map<String, String> annotations) throws IOException {
+    WavefrontSender sender = getSender();
+    if (sender != null) {
+      sender.sendEvent(name, startMillis, endMillis, source, tags, annotations);
+    }
+  }
+
+  @Override
+  public void sendLog(String name, double value, Long timestamp, String source, Map<String, String> tags)
+      throws IOException {
+    WavefrontSender sender = getSender();
+    if (sender != null) {
+      sender.sendLog(name, value, timestamp, source, tags);
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    WavefrontSender sender = getSender();
+    if (sender != null) {
+      sender.flush();
+    }
+  }
+
+  @Override
+  public int getFailureCount() {
+    WavefrontSender sender = getSender();
+    return (sender != null) ? sender.getFailureCount() : 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.closed = true;
+    WavefrontSender sender = getSender();
+    if (sender != null) {
+      sender.close();
+    }
+  }
+
+  /**
+   * Return the sender, or {@code null} if it is not available.
+   * @return the sender or {@code null}
+   */
+  WavefrontSender getSender() {
+    return (this.sender.isDone() && !this.sender.isCompletedExceptionally()) ? this.sender.join() : null;
+  }
+
+  private void closeQuietly(WavefrontSender sender) {
+    try {
+      sender.close();
+    }
+    catch (IOException ex) {
+      logger.debug("Failed to close Wavefront sender", ex);
+    }
+  }
+
+}
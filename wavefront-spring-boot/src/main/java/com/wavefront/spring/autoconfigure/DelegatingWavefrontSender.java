@@ -0,0 +1,92 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import com.wavefront.sdk.common.Pair;
+import com.wavefront.sdk.common.WavefrontSender;
+import com.wavefront.sdk.entities.histograms.HistogramGranularity;
+import com.wavefront.sdk.entities.tracing.SpanLog;
+
+/**
+ * Base {@link WavefrontSender} that forwards every call to a delegate. Subclasses
+ * override the calls they need to alter.
+ */
+abstract class DelegatingWavefrontSender implements WavefrontSender {
+
+  private final WavefrontSender delegate;
+
+  DelegatingWavefrontSender(WavefrontSender delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * Return the {@link WavefrontSender} calls are forwarded to.
+   * @return the delegate
+   */
+  WavefrontSender getDelegate() {
+    return this.delegate;
+  }
+
+  @Override
+  public String getClientId() {
+    return this.delegate.getClientId();
+  }
+
+  @Override
+  public void sendMetric(String name, double value, Long timestamp, String source, Map<String, String> tags)
+      throws IOException {
+    this.delegate.sendMetric(name, value, timestamp, source, tags);
+  }
+
+  @Override
+  public void sendFormattedMetric(String point) throws IOException {
+    this.delegate.sendFormattedMetric(point);
+  }
+
+  @Override
+  public void sendDistribution(String name, List<Pair<Double, Integer>> centroids,
+      Set<HistogramGranularity> histogramGranularities, Long timestamp, String source, Map<String, String> tags)
+      throws IOException {
+    this.delegate.sendDistribution(name, centroids, histogramGranularities, timestamp, source, tags);
+  }
+
+  @Override
+  public void sendSpan(String name, long startMillis, long durationMillis, String source, UUID traceId,
+      UUID spanId, List<UUID> parents, List<UUID> followsFrom, List<Pair<String, String>> tags,
+      List<SpanLog> spanLogs) throws IOException {
+    this.delegate.sendSpan(name, startMillis, durationMillis, source, traceId, spanId, parents, followsFrom,
+        tags, spanLogs);
+  }
+
+  @Override
+  public void sendEvent(String name, long startMillis, long endMillis, String source, Map<String, String> tags,
+      Map<String, String> annotations) throws IOException {
+    this.delegate.sendEvent(name, startMillis, endMillis, source, tags, annotations);
+  }
+
+  @Override
+  public void sendLog(String name, double value, Long timestamp, String source, Map<String, String> tags)
+      throws IOException {
+    this.delegate.sendLog(name, value, timestamp, source, tags);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    this.delegate.flush();
+  }
+
+  @Override
+  public int getFailureCount() {
+    return this.delegate.getFailureCount();
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.delegate.close();
+  }
+
+}
@@ -0,0 +1,359 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.wavefront.sdk.entities.tracing.sampling.RateSampler;
+import com.wavefront.sdk.entities.tracing.sampling.Sampler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A {@link Sampler} whose settings can be changed at runtime. A span is sampled if its
+ * trace is within the probability or if it is longer than the duration, and all spans
+ * are sampled if neither is set. The settings are swapped as a whole, so that a decision
+ * never mixes old and new settings.
+ * <p>
+ * Spans can also be sampled if they are slower than a quantile of the recent durations
+ * of their operation, or if they failed. These samplers are set when the sampler is
+ * created.
+ * <p>
+ * The OpenTracing tracer decides early, when a span starts, and again when it finishes:
+ * {@link #getSamplers()} provides a sampler for each of these decisions.
+ */
+public class DynamicSampler implements Sampler, MeterBinder {
+
+  private static final Log logger = LogFactory.getLog(DynamicSampler.class);
+
+  private final Supplier<Settings> configuredSettings;
+
+  private final AtomicReference<Settings> settings;
+
+  private final SamplerDecisions rateDecisions = new SamplerDecisions("rate");
+
+  private final SamplerDecisions durationDecisions = new SamplerDecisions("duration");
+
+  private final SamplerDecisions latencyDecisions = new SamplerDecisions("latency");
+
+  private final SamplerDecisions errorDecisions = new SamplerDecisions("error");
+
+  private final OperationLatencySampler latencySampler;
+
+  private final boolean sampleErrors;
+
+  private final LongAdder updates = new LongAdder();
+
+  private final List<MeterRegistry> registries = new CopyOnWriteArrayList<>();
+
+  DynamicSampler(Supplier<Settings> configuredSettings) {
+    this(configuredSettings, null, false);
+  }
+
+  /**
+   * Create a new instance.
+   * @param configuredSettings the configured settings
+   * @param latencySampler the sampler of slow spans, or {@code null} if latency sampling
+   * should not be applied
+   * @param sampleErrors whether spans with an error should be sampled
+   */
+  DynamicSampler(Supplier<Settings> configuredSettings, OperationLatencySampler latencySampler,
+      boolean sampleErrors) {
+    this.configuredSettings = configuredSettings;
+    this.settings = new AtomicReference<>(configuredSettings.get());
+    this.latencySampler = latencySampler;
+    this.sampleErrors = sampleErrors;
+  }
+
+  /**
+   * Return the settings currently applied.
+   * @return the current settings
+   */
+  public Settings getSettings() {
+    return this.settings.get();
+  }
+
+  /**
+   * Apply the specified settings.
+   * @param settings the settings to apply
+   */
+  public void update(Settings settings) {
+    Settings previous = this.settings.getAndSet(settings);
+    if (!previous.equals(settings)) {
+      this.updates.increment();
+      this.registries.forEach((registry) -> bindDecisions(registry, settings));
+      logger.info("Wavefront sampling changed from " + previous + " to " + settings);
+    }
+  }
+
+  /**
+   * Apply the configured settings again, discarding any change made at runtime.
+   */
+  public void reset() {
+    update(this.configuredSettings.get());
+  }
+
+  @Override
+  public boolean sample(String operationName, long traceId, long duration) {
+    return sample(operationName, traceId, duration, false);
+  }
+
+  /**
+   * Return whether a finished span should be sampled.
+   * @param operationName the name of the operation of the span
+   * @param traceId the low 64 bits of the trace id
+   * @param duration the duration of the span in milliseconds
+   * @param error whether the span has an error
+   * @return whether the span is sampled
+   */
+  boolean sample(String operationName, long traceId, long duration, boolean error) {
+    Settings settings = this.settings.get();
+    if (!isConfigured(settings)) {
+      return true;
+    }
+    // every sampler is asked, so that its decisions are counted and the latency sampler
+    // learns from every span
+    boolean slow = sampleLatency(operationName, duration);
+    boolean withinRate = sampleRate(settings, traceId);
+    boolean longer = sampleDuration(settings, duration);
+    boolean failed = sampleError(error);
+    return slow || withinRate || longer || failed;
+  }
+
+  @Override
+  public boolean isEarly() {
+    return false;
+  }
+
+  /**
+   * Return whether the spans of a trace should be sampled when it starts, based on the
+   * probability. A trace is not sampled if only other samplers are set, as this cannot be
+   * decided yet.
+   * @param traceId the low 64 bits of the trace id
+   * @return whether the trace is sampled
+   */
+  boolean sampleEarly(long traceId) {
+    Settings settings = this.settings.get();
+    if (settings.probability == null) {
+      return !isConfigured(settings);
+    }
+    return sampleRate(settings, traceId);
+  }
+
+  /**
+   * Return whether a finished span should be sampled, based on the samplers that need it
+   * to be finished: its duration, its latency compared to its operation and its error.
+   * @param operationName the name of the operation of the span
+   * @param duration the duration of the span in milliseconds
+   * @param error whether the span has an error
+   * @return whether the span is sampled
+   */
+  boolean sampleLate(String operationName, long duration, boolean error) {
+    Settings settings = this.settings.get();
+    // every sampler is asked, so that its decisions are counted and the latency sampler
+    // learns from every span
+    boolean slow = sampleLatency(operationName, duration);
+    boolean longer = sampleDuration(settings, duration);
+    boolean failed = sampleError(error);
+    return slow || longer || failed;
+  }
+
+  /**
+   * Return the samplers to register with an OpenTracing tracer: one for the decision
+   * taken when a span starts and one for the decision taken when it finishes. The tracer
+   * only asks for the latter if a span was not sampled when it started, so the latency
+   * sampler does not learn from, and the late decisions do not count, spans sampled by
+   * probability.
+   * @return the samplers
+   */
+  List<Sampler> getSamplers() {
+    return Arrays.asList(new EarlySampler(), new LateSampler());
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    this.registries.add(registry);
+    bindDecisions(registry, getSettings());
+    Gauge.builder("sampler.probability", this, DynamicSampler::getEffectiveProbability)
+        .description("Probabilistic rate of traces whose spans are sampled").register(registry);
+    TimeGauge.builder("sampler.duration", this, TimeUnit.MILLISECONDS, (sampler) -> {
+      Duration duration = sampler.getSettings().getDuration();
+      return (duration != null) ? duration.toMillis() : Double.NaN;
+    }).description("Duration above which spans are sampled").register(registry);
+    FunctionCounter.builder("sampler.updates", this.updates, LongAdder::sum)
+        .description("Number of times the sampling settings changed").register(registry);
+    if (this.latencySampler != null) {
+      this.latencyDecisions.bindTo(registry);
+      Gauge.builder("sampler.latency.quantile", this.latencySampler, OperationLatencySampler::getQuantile)
+          .description("Quantile of the durations of an operation above which spans are sampled")
+          .register(registry);
+      Gauge.builder("sampler.latency.operations", this.latencySampler, OperationLatencySampler::getOperationCount)
+          .description("Number of operations whose durations are tracked").register(registry);
+    }
+    if (this.sampleErrors) {
+      this.errorDecisions.bindTo(registry);
+    }
+  }
+
+  /**
+   * Return the rate of traces whose spans are sampled regardless of their duration and
+   * error.
+   */
+  private double getEffectiveProbability() {
+    Settings settings = getSettings();
+    if (settings.probability != null) {
+      return settings.probability;
+    }
+    return isConfigured(settings) ? 0.0 : 1.0;
+  }
+
+  private boolean isConfigured(Settings settings) {
+    return settings.probability != null || settings.duration != null || this.latencySampler != null
+        || this.sampleErrors;
+  }
+
+  /**
+   * Bind the decisions of the samplers in use, so that only these are exposed.
+   */
+  private void bindDecisions(MeterRegistry registry, Settings settings) {
+    if (settings.probability != null) {
+      this.rateDecisions.bindTo(registry);
+    }
+    if (settings.duration != null) {
+      this.durationDecisions.bindTo(registry);
+    }
+  }
+
+  private boolean sampleRate(Settings settings, long traceId) {
+    return settings.probability != null
+        && this.rateDecisions.record(RateSampler.sample(settings.probability, traceId));
+  }
+
+  private boolean sampleDuration(Settings settings, long duration) {
+    return settings.duration != null && this.durationDecisions.record(duration > settings.duration.toMillis());
+  }
+
+  private boolean sampleLatency(String operationName, long duration) {
+    return this.latencySampler != null
+        && this.latencyDecisions.record(this.latencySampler.sample(operationName, 0, duration));
+  }
+
+  private boolean sampleError(boolean error) {
+    return this.sampleErrors && this.errorDecisions.record(error);
+  }
+
+  /**
+   * Decides when a span starts, based on the probability.
+   */
+  private final class EarlySampler implements Sampler {
+
+    @Override
+    public boolean sample(String operationName, long traceId, long duration) {
+      return sampleEarly(traceId);
+    }
+
+    @Override
+    public boolean isEarly() {
+      return true;
+    }
+
+  }
+
+  /**
+   * Decides when a span finishes, based on its duration and its latency. The OpenTracing
+   * tracer samples spans with an error by itself, so errors are not sampled here.
+   */
+  private final class LateSampler implements Sampler {
+
+    @Override
+    public boolean sample(String operationName, long traceId, long duration) {
+      boolean slow = sampleLatency(operationName, duration);
+      boolean longer = sampleDuration(getSettings(), duration);
+      return slow || longer;
+    }
+
+    @Override
+    public boolean isEarly() {
+      return false;
+    }
+
+  }
+
+  /**
+   * Immutable sampling settings.
+   */
+  public static final class Settings {
+
+    private final Double probability;
+
+    private final Duration duration;
+
+    private Settings(Double probability, Duration duration) {
+      this.probability = probability;
+      this.duration = duration;
+    }
+
+    /**
+     * Create settings.
+     * @param probability the rate of traces whose spans are sampled, or {@code null} if
+     * probabilistic sampling should not be applied
+     * @param duration the duration above which spans are sampled, or {@code null} if
+     * duration sampling should not be applied
+     * @return the settings
+     * @throws IllegalArgumentException if the probability is not between 0.0 and 1.0 or
+     * the duration is negative
+     */
+    public static Settings of(Double probability, Duration duration) {
+      if (probability != null && !(probability >= 0.0 && probability <= 1.0)) {
+        throw new IllegalArgumentException("Probability must be between 0.0 and 1.0, got " + probability);
+      }
+      if (duration != null && duration.isNegative()) {
+        throw new IllegalArgumentException("Duration must not be negative, got " + duration);
+      }
+      return new Settings(probability, duration);
+    }
+
+    public Double getProbability() {
+      return this.probability;
+    }
+
+    public Duration getDuration() {
+      return this.duration;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      Settings other = (Settings) obj;
+      return Objects.equals(this.probability, other.probability) && Objects.equals(this.duration, other.duration);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.probability, this.duration);
+    }
+
+    @Override
+    public String toString() {
+      return "[probability=" + this.probability + ", duration=" + this.duration + "]";
+    }
+
+  }
+
+}
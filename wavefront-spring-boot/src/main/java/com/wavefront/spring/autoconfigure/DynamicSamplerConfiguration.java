@@ -0,0 +1,93 @@
+package com.wavefront.spring.autoconfigure;
+
+import com.wavefront.spring.autoconfigure.DynamicSampler.Settings;
+import io.micrometer.core.instrument.Clock;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Configuration shared by the tracing auto-configurations, each of which registers its
+ * own {@link DynamicSampler} with {@link #createDynamicSampler(Environment, boolean)}.
+ */
+@Configuration(proxyBeanMethods = false)
+class DynamicSamplerConfiguration {
+
+  /**
+   * Create a {@link DynamicSampler} from the sampling settings of the environment.
+   * @param environment the environment
+   * @param openTracing whether the sampler is used by the OpenTracing tracer, to which
+   * the deprecated {@code wavefront.tracing.opentracing.sampler} settings also apply and
+   * which samples spans with an error by itself
+   * @return the sampler
+   */
+  static DynamicSampler createDynamicSampler(Environment environment, boolean openTracing) {
+    WavefrontProperties.Tracing.Sampler sampler = bindTracing(environment).getSampler();
+    // bind again rather than using the properties bean so that a reset picks up changes
+    // the OpenTracing tracer samples spans with an error by itself
+    return new DynamicSampler(() -> getSettings(bindTracing(environment), openTracing),
+        getLatencySampler(sampler.getLatency()), !openTracing && sampler.isErrors());
+  }
+
+  private static WavefrontProperties.Tracing bindTracing(Environment environment) {
+    return Binder.get(environment).bindOrCreate("wavefront", WavefrontProperties.class).getTracing();
+  }
+
+  private static OperationLatencySampler getLatencySampler(WavefrontProperties.Tracing.Sampler.Latency latency) {
+    if (latency.getQuantile() == null) {
+      return null;
+    }
+    return new OperationLatencySampler(latency.getQuantile(), latency.getMaxOperations(), Clock.SYSTEM);
+  }
+
+  static Settings getSettings(WavefrontProperties.Tracing tracing, boolean openTracing) {
+    WavefrontProperties.Tracing.Sampler sampler = tracing.getSampler();
+    if (!openTracing || sampler.getProbability() != null || sampler.getDuration() != null) {
+      return Settings.of(sampler.getProbability(), sampler.getDuration());
+    }
+    WavefrontProperties.Tracing.Opentracing.Sampler legacy = tracing.getOpentracing().getSampler();
+    return Settings.of(legacy.getProbability(), legacy.getDuration());
+  }
+
+  @Configuration(proxyBeanMethods = false)
+  @ConditionalOnClass(EnvironmentChangeEvent.class)
+  static class RefreshConfiguration {
+
+    @Bean
+    DynamicSamplerRefreshListener wavefrontDynamicSamplerRefreshListener(ObjectProvider<DynamicSampler> sampler) {
+      return new DynamicSamplerRefreshListener(sampler);
+    }
+
+  }
+
+  /**
+   * Applies the configured sampling settings again when they change in the environment.
+   */
+  static class DynamicSamplerRefreshListener implements ApplicationListener<EnvironmentChangeEvent> {
+
+    private final ObjectProvider<DynamicSampler> sampler;
+
+    DynamicSamplerRefreshListener(ObjectProvider<DynamicSampler> sampler) {
+      this.sampler = sampler;
+    }
+
+    @Override
+    public void onApplicationEvent(EnvironmentChangeEvent event) {
+      if (event.getKeys().stream().anyMatch(DynamicSamplerRefreshListener::isSamplerProperty)) {
+        this.sampler.ifAvailable(DynamicSampler::reset);
+      }
+    }
+
+    private static boolean isSamplerProperty(String key) {
+      return key.startsWith("wavefront.tracing.sampler.") || key.startsWith("wavefront.tracing.opentracing.sampler.");
+    }
+
+  }
+
+}
@@ -0,0 +1,224 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * {@link MeterBinder} that turns JDK Flight Recorder events into histograms, using an
+ * event stream rather than polling MXBeans. Records GC pauses, safepoints, thread parks
+ * and allocation samples as they happen so that short events between two polls are not
+ * missed.
+ *
+ * <p>Meters are created on the first event of each kind and cached, so that recording an
+ * event does not look meters up in the registries.
+ *
+ * <p>Event streaming requires JDK 14 or later. As this project targets Java 8, the
+ * streaming API is invoked reflectively.
+ */
+final class JfrMetrics implements MeterBinder, AutoCloseable {
+
+  static final String RECORDING_STREAM_CLASS = "jdk.jfr.consumer.RecordingStream";
+
+  private static final Log logger = LogFactory.getLog(JfrMetrics.class);
+
+  private final Duration threshold;
+
+  private final List<MeterRegistry> registries = new CopyOnWriteArrayList<>();
+
+  private volatile MeterCache meters = new MeterCache(Collections.emptyList());
+
+  private AutoCloseable stream;
+
+  private RecordedEventAccessor accessor;
+
+  JfrMetrics(Duration threshold) {
+    this.threshold = threshold;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    this.registries.add(registry);
+    // replaced rather than cleared, so that an event being recorded cannot cache stale meters
+    this.meters = new MeterCache(new ArrayList<>(this.registries));
+    start();
+  }
+
+  @Override
+  public synchronized void close() throws Exception {
+    if (this.stream != null) {
+      this.stream.close();
+      this.stream = null;
+    }
+  }
+
+  private synchronized void start() {
+    if (this.stream != null) {
+      return;
+    }
+    try {
+      Class<?> streamType = Class.forName(RECORDING_STREAM_CLASS, false, getClass().getClassLoader());
+      this.accessor = new RecordedEventAccessor(streamType.getClassLoader());
+      AutoCloseable stream = (AutoCloseable) streamType.getConstructor().newInstance();
+      Method enable = streamType.getMethod("enable", String.class);
+      Method withThreshold = enable.getReturnType().getMethod("withThreshold", Duration.class);
+      Method onEvent = streamType.getMethod("onEvent", String.class, Consumer.class);
+      withThreshold.invoke(enable.invoke(stream, "jdk.GarbageCollection"), Duration.ZERO);
+      withThreshold.invoke(enable.invoke(stream, "jdk.SafepointBegin"), this.threshold);
+      withThreshold.invoke(enable.invoke(stream, "jdk.ThreadPark"), this.threshold);
+      enable.invoke(stream, "jdk.ObjectAllocationSample");
+      onEvent.invoke(stream, "jdk.GarbageCollection", (Consumer<Object>) this::onGarbageCollection);
+      onEvent.invoke(stream, "jdk.SafepointBegin", (Consumer<Object>) this::onSafepoint);
+      onEvent.invoke(stream, "jdk.ThreadPark", (Consumer<Object>) this::onThreadPark);
+      onEvent.invoke(stream, "jdk.ObjectAllocationSample", (Consumer<Object>) this::onAllocationSample);
+      streamType.getMethod("startAsync").invoke(stream);
+      this.stream = stream;
+    }
+    catch (ReflectiveOperationException | LinkageError ex) {
+      logger.warn("Failed to start JFR event streaming, JFR metrics will not be available", ex);
+    }
+  }
+
+  private void onGarbageCollection(Object event) {
+    String name = this.accessor.getString(event, "name");
+    String cause = this.accessor.getString(event, "cause");
+    Duration pause = this.accessor.getDuration(event, "sumOfPauses");
+    List<Timer> timers = this.meters.getTimers(Arrays.asList("jfr.gc.pause", name, cause),
+        (registry) -> Timer.builder("jfr.gc.pause").description("Time spent in GC pauses").tag("gc", name)
+            .tag("cause", cause).publishPercentileHistogram().register(registry));
+    for (Timer timer : timers) {
+      timer.record(pause.toNanos(), TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private void onSafepoint(Object event) {
+    record("jfr.safepoint", "Time spent in safepoints", this.accessor.getDuration(event));
+  }
+
+  private void onThreadPark(Object event) {
+    record("jfr.thread.park", "Time threads spent parked", this.accessor.getDuration(event));
+  }
+
+  private void onAllocationSample(Object event) {
+    long weight = this.accessor.getLong(event, "weight");
+    List<DistributionSummary> summaries = this.meters.getSummaries("jfr.allocation",
+        (registry) -> DistributionSummary.builder("jfr.allocation").description("Sampled object allocations")
+            .baseUnit("bytes").publishPercentileHistogram().register(registry));
+    for (DistributionSummary summary : summaries) {
+      summary.record(weight);
+    }
+  }
+
+  private void record(String name, String description, Duration duration) {
+    List<Timer> timers = this.meters.getTimers(name,
+        (registry) -> Timer.builder(name).description(description).publishPercentileHistogram().register(registry));
+    for (Timer timer : timers) {
+      timer.record(duration.toNanos(), TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Meters of each kind of event, for the registries bound when the cache was created.
+   */
+  private static final class MeterCache {
+
+    private final List<MeterRegistry> registries;
+
+    private final ConcurrentMap<Object, List<Timer>> timers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Object, List<DistributionSummary>> summaries = new ConcurrentHashMap<>();
+
+    MeterCache(List<MeterRegistry> registries) {
+      this.registries = registries;
+    }
+
+    List<Timer> getTimers(Object key, Function<MeterRegistry, Timer> factory) {
+      List<Timer> timers = this.timers.get(key);
+      return (timers != null) ? timers : this.timers.computeIfAbsent(key, (k) -> register(factory));
+    }
+
+    List<DistributionSummary> getSummaries(Object key, Function<MeterRegistry, DistributionSummary> factory) {
+      List<DistributionSummary> summaries = this.summaries.get(key);
+      return (summaries != null) ? summaries : this.summaries.computeIfAbsent(key, (k) -> register(factory));
+    }
+
+    private <T> List<T> register(Function<MeterRegistry, T> factory) {
+      List<T> meters = new ArrayList<>(this.registries.size());
+      for (MeterRegistry registry : this.registries) {
+        meters.add(factory.apply(registry));
+      }
+      return meters;
+    }
+
+  }
+
+  /**
+   * Reflective access to the fields of a {@code jdk.jfr.consumer.RecordedEvent}.
+   */
+  private static final class RecordedEventAccessor {
+
+    private final Method getDuration;
+
+    private final Method getDurationField;
+
+    private final Method getString;
+
+    private final Method getLong;
+
+    RecordedEventAccessor(ClassLoader classLoader) throws ReflectiveOperationException {
+      Class<?> eventType = Class.forName("jdk.jfr.consumer.RecordedEvent", false, classLoader);
+      this.getDuration = eventType.getMethod("getDuration");
+      this.getDurationField = eventType.getMethod("getDuration", String.class);
+      this.getString = eventType.getMethod("getString", String.class);
+      this.getLong = eventType.getMethod("getLong", String.class);
+    }
+
+    Duration getDuration(Object event) {
+      return (Duration) invoke(this.getDuration, event);
+    }
+
+    Duration getDuration(Object event, String field) {
+      return (Duration) invoke(this.getDurationField, event, field);
+    }
+
+    String getString(Object event, String field) {
+      String value = (String) invoke(this.getString, event, field);
+      return (value != null) ? value : "unknown";
+    }
+
+    long getLong(Object event, String field) {
+      return (Long) invoke(this.getLong, event, field);
+    }
+
+    private Object invoke(Method method, Object event, Object... args) {
+      try {
+        return method.invoke(event, args);
+      }
+      catch (InvocationTargetException ex) {
+        throw new IllegalStateException("Failed to read JFR event", ex.getTargetException());
+      }
+      catch (IllegalAccessException ex) {
+        throw new IllegalStateException("Failed to read JFR event", ex);
+      }
+    }
+
+  }
+
+}
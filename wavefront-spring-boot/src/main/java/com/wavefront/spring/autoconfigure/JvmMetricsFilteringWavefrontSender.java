@@ -0,0 +1,78 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.wavefront.sdk.common.Pair;
+import com.wavefront.sdk.common.WavefrontSender;
+import com.wavefront.sdk.entities.histograms.HistogramGranularity;
+import com.wavefront.spring.autoconfigure.WavefrontProperties.Metrics.Jvm.Group;
+
+/**
+ * A {@link WavefrontSender} for the Wavefront JVM reporter that drops the points of the
+ * JVM metric groups that are not enabled. The reporter does not offer a way to select
+ * the metrics it collects so groups are filtered by name before reaching the delegate.
+ */
+final class JvmMetricsFilteringWavefrontSender extends DelegatingWavefrontSender {
+
+  private static final String PREFIX = "app-agent.";
+
+  private static final Map<Group, List<String>> GROUP_PREFIXES;
+
+  static {
+    Map<Group, List<String>> prefixes = new EnumMap<>(Group.class);
+    prefixes.put(Group.GC, Collections.singletonList("jvm.gc."));
+    prefixes.put(Group.MEMORY, Arrays.asList("jvm.memory.heap.", "jvm.memory.non-heap.", "jvm.memory.total."));
+    prefixes.put(Group.MEMORY_POOLS, Collections.singletonList("jvm.memory.pools."));
+    prefixes.put(Group.THREADS, Collections.singletonList("jvm.thread-states."));
+    prefixes.put(Group.BUFFER_POOLS, Collections.singletonList("jvm.buffers."));
+    prefixes.put(Group.CLASSLOADING, Collections.singletonList("jvm.classes."));
+    prefixes.put(Group.RUNTIME, Arrays.asList("jvm.uptime", "jvm.current_time", "jvm.fd_usage"));
+    GROUP_PREFIXES = Collections.unmodifiableMap(prefixes);
+  }
+
+  private final List<String> excludedPrefixes;
+
+  JvmMetricsFilteringWavefrontSender(WavefrontSender delegate, Set<Group> groups) {
+    super(delegate);
+    this.excludedPrefixes = new ArrayList<>();
+    GROUP_PREFIXES.forEach((group, prefixes) -> {
+      if (!groups.contains(group)) {
+        prefixes.forEach((prefix) -> this.excludedPrefixes.add(PREFIX + prefix));
+      }
+    });
+  }
+
+  @Override
+  public void sendMetric(String name, double value, Long timestamp, String source, Map<String, String> tags)
+      throws IOException {
+    if (isIncluded(name)) {
+      super.sendMetric(name, value, timestamp, source, tags);
+    }
+  }
+
+  @Override
+  public void sendDistribution(String name, List<Pair<Double, Integer>> centroids,
+      Set<HistogramGranularity> histogramGranularities, Long timestamp, String source, Map<String, String> tags)
+      throws IOException {
+    if (isIncluded(name)) {
+      super.sendDistribution(name, centroids, histogramGranularities, timestamp, source, tags);
+    }
+  }
+
+  private boolean isIncluded(String name) {
+    for (String prefix : this.excludedPrefixes) {
+      if (name.startsWith(prefix)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
@@ -0,0 +1,71 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.wavefront.opentracing.WavefrontSpan;
+import com.wavefront.opentracing.reporting.CompositeReporter;
+import com.wavefront.opentracing.reporting.Reporter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * A {@link CompositeReporter} that hands finished spans to its reporters on the calling
+ * thread and counts them. The errors of a reporter are the spans it failed to report
+ * and its own failure count, such as the failures of the sender of a
+ * {@code WavefrontSpanReporter}.
+ * <p>
+ * The queue of a {@code WavefrontSpanReporter} and the spans it drops are not exposed by
+ * the SDK, and so are not bound.
+ */
+class MeteredReporter extends CompositeReporter implements MeterBinder {
+
+  private final Reporter[] reporters;
+
+  private final LongAdder received = new LongAdder();
+
+  private final LongAdder[] errors;
+
+  MeteredReporter(Reporter... reporters) {
+    super(reporters);
+    this.reporters = reporters;
+    this.errors = new LongAdder[reporters.length];
+    for (int i = 0; i < reporters.length; i++) {
+      this.errors[i] = new LongAdder();
+    }
+  }
+
+  @Override
+  public void report(WavefrontSpan span) throws IOException {
+    this.received.increment();
+    IOException failure = null;
+    for (int i = 0; i < this.reporters.length; i++) {
+      try {
+        this.reporters[i].report(span);
+      }
+      catch (IOException | RuntimeException ex) {
+        this.errors[i].increment();
+        if (failure == null) {
+          failure = (ex instanceof IOException) ? (IOException) ex : new IOException(ex);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("reporter.spans.received", this.received, LongAdder::sum).register(registry);
+    String[] names = AsyncReporter.getNames(this.reporters);
+    for (int i = 0; i < this.reporters.length; i++) {
+      Reporter reporter = this.reporters[i];
+      LongAdder errors = this.errors[i];
+      FunctionCounter.builder("reporter.errors", reporter, (target) -> errors.sum() + target.getFailureCount())
+          .tag("reporter", names[i]).register(registry);
+    }
+  }
+
+}
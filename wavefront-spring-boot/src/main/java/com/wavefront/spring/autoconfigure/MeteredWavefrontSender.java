@@ -0,0 +1,108 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.wavefront.sdk.common.Pair;
+import com.wavefront.sdk.common.WavefrontSender;
+import com.wavefront.sdk.entities.histograms.HistogramGranularity;
+import com.wavefront.sdk.entities.tracing.SpanLog;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * A {@link WavefrontSender} that counts the items handed to its delegate, so that the
+ * throughput of senders that are used side by side can be compared.
+ */
+class MeteredWavefrontSender extends DelegatingWavefrontSender implements MeterBinder {
+
+  private final String name;
+
+  private final LongAdder metrics = new LongAdder();
+
+  private final LongAdder histograms = new LongAdder();
+
+  private final LongAdder spans = new LongAdder();
+
+  private final LongAdder events = new LongAdder();
+
+  private final LongAdder logs = new LongAdder();
+
+  MeteredWavefrontSender(WavefrontSender delegate, String name) {
+    super(delegate);
+    this.name = name;
+  }
+
+  /**
+   * Return the name of the sender, used to tag its meters.
+   * @return the name of the sender
+   */
+  String getName() {
+    return this.name;
+  }
+
+  @Override
+  public void sendMetric(String name, double value, Long timestamp, String source, Map<String, String> tags)
+      throws IOException {
+    super.sendMetric(name, value, timestamp, source, tags);
+    this.metrics.increment();
+  }
+
+  @Override
+  public void sendFormattedMetric(String point) throws IOException {
+    super.sendFormattedMetric(point);
+    this.metrics.increment();
+  }
+
+  @Override
+  public void sendDistribution(String name, List<Pair<Double, Integer>> centroids,
+      Set<HistogramGranularity> histogramGranularities, Long timestamp, String source, Map<String, String> tags)
+      throws IOException {
+    super.sendDistribution(name, centroids, histogramGranularities, timestamp, source, tags);
+    this.histograms.increment();
+  }
+
+  @Override
+  public void sendSpan(String name, long startMillis, long durationMillis, String source, UUID traceId,
+      UUID spanId, List<UUID> parents, List<UUID> followsFrom, List<Pair<String, String>> tags,
+      List<SpanLog> spanLogs) throws IOException {
+    super.sendSpan(name, startMillis, durationMillis, source, traceId, spanId, parents, followsFrom, tags,
+        spanLogs);
+    this.spans.increment();
+  }
+
+  @Override
+  public void sendEvent(String name, long startMillis, long endMillis, String source, Map<String, String> tags,
+      Map<String, String> annotations) throws IOException {
+    super.sendEvent(name, startMillis, endMillis, source, tags, annotations);
+    this.events.increment();
+  }
+
+  @Override
+  public void sendLog(String name, double value, Long timestamp, String source, Map<String, String> tags)
+      throws IOException {
+    super.sendLog(name, value, timestamp, source, tags);
+    this.logs.increment();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    register(registry, "metrics", this.metrics);
+    register(registry, "histograms", this.histograms);
+    register(registry, "spans", this.spans);
+    register(registry, "events", this.events);
+    register(registry, "logs", this.logs);
+  }
+
+  private void register(MeterRegistry registry, String type, LongAdder counter) {
+    FunctionCounter.builder("wavefront.sender.sent", counter, LongAdder::sum)
+        .description("Number of items handed to the sender").tag("sender", this.name).tag("type", type)
+        .register(registry);
+  }
+
+}
@@ -0,0 +1,129 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.wavefront.sdk.entities.tracing.sampling.Sampler;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.distribution.TimeWindowPercentileHistogram;
+
+/**
+ * A {@link Sampler} that samples spans slower than a quantile of the recent durations of
+ * the spans of the same operation. The durations of each operation are tracked with a
+ * compact histogram over a sliding time window, so that the threshold follows changes in
+ * latency.
+ * <p>
+ * No span of an operation is sampled until enough of its durations have been recorded.
+ * Operations beyond the maximum number are not tracked, so that memory use is bounded.
+ */
+class OperationLatencySampler implements Sampler {
+
+  /**
+   * Minimum number of durations recorded before the quantile of an operation is used.
+   */
+  static final int MIN_SPANS = 100;
+
+  private static final long REFRESH_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+  private final double quantile;
+
+  private final int maxOperations;
+
+  private final Clock clock;
+
+  private final DistributionStatisticConfig distributionStatisticConfig;
+
+  private final ConcurrentMap<String, OperationLatency> operations = new ConcurrentHashMap<>();
+
+  /**
+   * Create a new instance.
+   * @param quantile the quantile (between 0.0 and 1.0, exclusive) above which spans are
+   * sampled
+   * @param maxOperations the maximum number of operations to track
+   * @param clock the clock of the time window
+   * @throws IllegalArgumentException if the quantile is not between 0.0 and 1.0
+   */
+  OperationLatencySampler(double quantile, int maxOperations, Clock clock) {
+    if (!(quantile > 0.0 && quantile < 1.0)) {
+      throw new IllegalArgumentException("Quantile must be between 0.0 and 1.0 (exclusive), got " + quantile);
+    }
+    this.quantile = quantile;
+    this.maxOperations = maxOperations;
+    this.clock = clock;
+    // a precision of one significant digit keeps the histogram of each operation small
+    this.distributionStatisticConfig = DistributionStatisticConfig.builder().percentiles(quantile)
+        .percentilePrecision(1).expiry(Duration.ofMinutes(2)).bufferLength(3).build()
+        .merge(DistributionStatisticConfig.DEFAULT);
+  }
+
+  double getQuantile() {
+    return this.quantile;
+  }
+
+  /**
+   * Return the number of operations whose durations are tracked.
+   * @return the number of operations
+   */
+  int getOperationCount() {
+    return this.operations.size();
+  }
+
+  @Override
+  public boolean sample(String operationName, long traceId, long duration) {
+    OperationLatency latency = getOperationLatency(operationName);
+    return latency != null && latency.isSlow(duration);
+  }
+
+  @Override
+  public boolean isEarly() {
+    return false;
+  }
+
+  private OperationLatency getOperationLatency(String operationName) {
+    OperationLatency latency = this.operations.get(operationName);
+    if (latency == null && this.operations.size() < this.maxOperations) {
+      latency = this.operations.computeIfAbsent(operationName, (key) -> new OperationLatency());
+    }
+    return latency;
+  }
+
+  /**
+   * Durations of the spans of an operation. The threshold is refreshed at most once per
+   * second, as taking a snapshot of the histogram is comparatively expensive.
+   */
+  private final class OperationLatency {
+
+    private final TimeWindowPercentileHistogram histogram = new TimeWindowPercentileHistogram(clock,
+        distributionStatisticConfig, false);
+
+    private final LongAdder count = new LongAdder();
+
+    private volatile double threshold = Double.NaN;
+
+    private volatile long nextRefresh = clock.monotonicTime();
+
+    boolean isSlow(long duration) {
+      this.histogram.recordLong(duration);
+      this.count.increment();
+      if (clock.monotonicTime() - this.nextRefresh >= 0 && this.count.sum() >= MIN_SPANS) {
+        refresh();
+      }
+      // never sampled while the threshold is unknown, as comparisons with NaN are false
+      return duration > this.threshold;
+    }
+
+    private synchronized void refresh() {
+      long now = clock.monotonicTime();
+      if (now - this.nextRefresh >= 0) {
+        this.threshold = this.histogram.takeSnapshot(0, 0, 0).percentileValues()[0].value();
+        this.nextRefresh = now + REFRESH_INTERVAL;
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,45 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.wavefront.sdk.entities.tracing.sampling.Sampler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counts the decisions of a {@link Sampler}.
+ */
+class SamplerDecisions {
+
+  private final String sampler;
+
+  private final LongAdder sampled = new LongAdder();
+
+  private final LongAdder unsampled = new LongAdder();
+
+  SamplerDecisions(String sampler) {
+    this.sampler = sampler;
+  }
+
+  /**
+   * Record a decision of the sampler.
+   * @param sampled whether the span was sampled
+   * @return the decision
+   */
+  boolean record(boolean sampled) {
+    (sampled ? this.sampled : this.unsampled).increment();
+    return sampled;
+  }
+
+  void bindTo(MeterRegistry registry) {
+    register(registry, "sampled", this.sampled);
+    register(registry, "unsampled", this.unsampled);
+  }
+
+  private void register(MeterRegistry registry, String result, LongAdder counter) {
+    FunctionCounter.builder("sampler.spans", counter, LongAdder::sum)
+        .description("Number of spans the sampler decided on").tag("sampler", this.sampler).tag("result", result)
+        .register(registry);
+  }
+
+}
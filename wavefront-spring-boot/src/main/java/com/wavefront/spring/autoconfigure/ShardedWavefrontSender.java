@@ -0,0 +1,353 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import com.wavefront.sdk.common.Pair;
+import com.wavefront.sdk.common.WavefrontSender;
+import com.wavefront.sdk.entities.histograms.HistogramGranularity;
+import com.wavefront.sdk.entities.tracing.SpanLog;
+
+/**
+ * A {@link WavefrontSender} that shards data across several endpoints using consistent
+ * hashing. Spans are sharded by trace id so that all the spans of a trace are sent to
+ * the same endpoint. Metrics and distributions are sharded by series, that is their
+ * name, source and tags. Events and logs are sharded by name.
+ * <p>
+ * Endpoints are checked in the background. An endpoint that cannot be connected to, or
+ * whose sender reports new failures or throws an exception, is considered unhealthy and
+ * skipped for some time. Data that would have been sent to it is sent to the next
+ * healthy endpoint on the ring instead. Data already buffered by the sender of an
+ * unhealthy endpoint is not rerouted: it stays with that sender.
+ */
+class ShardedWavefrontSender implements WavefrontSender {
+
+  private static final int VIRTUAL_NODES = 128;
+
+  private static final Duration HEALTH_CHECK_INTERVAL = Duration.ofSeconds(5);
+
+  private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(1);
+
+  private final Map<String, Shard> shards;
+
+  private final NavigableMap<Long, Shard> ring = new TreeMap<>();
+
+  private final Duration retryInterval;
+
+  private final Predicate<String> healthCheck;
+
+  private final Clock clock;
+
+  private final LongAdder failovers = new LongAdder();
+
+  private ScheduledExecutorService healthChecks;
+
+  ShardedWavefrontSender(Map<String, WavefrontSender> senders, Duration retryInterval) {
+    this(senders, retryInterval, ShardedWavefrontSender::isReachable, Clock.systemUTC());
+    this.healthChecks = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+      Thread thread = new Thread(runnable, "wavefront-endpoint-health");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long interval = HEALTH_CHECK_INTERVAL.toMillis();
+    this.healthChecks.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  ShardedWavefrontSender(Map<String, WavefrontSender> senders, Duration retryInterval,
+      Predicate<String> healthCheck, Clock clock) {
+    if (senders.isEmpty()) {
+      throw new IllegalArgumentException("At least one endpoint is required");
+    }
+    Map<String, Shard> shards = new LinkedHashMap<>();
+    senders.forEach((endpoint, sender) -> {
+      Shard shard = new Shard(endpoint, sender);
+      shards.put(endpoint, shard);
+      long endpointHash = mix(endpoint.hashCode());
+      for (int i = 0; i < VIRTUAL_NODES; i++) {
+        this.ring.putIfAbsent(mix(endpointHash + i), shard);
+      }
+    });
+    this.shards = Collections.unmodifiableMap(shards);
+    this.retryInterval = retryInterval;
+    this.healthCheck = healthCheck;
+    this.clock = clock;
+  }
+
+  /**
+   * Return the senders of each endpoint.
+   * @return the senders, keyed by endpoint
+   */
+  Map<String, WavefrontSender> getSenders() {
+    Map<String, WavefrontSender> senders = new LinkedHashMap<>();
+    this.shards.forEach((endpoint, shard) -> senders.put(endpoint, shard.sender));
+    return senders;
+  }
+
+  /**
+   * Return whether the specified endpoint is currently used.
+   * @param endpoint the endpoint
+   * @return {@code true} if the endpoint is healthy
+   */
+  boolean isHealthy(String endpoint) {
+    Shard shard = this.shards.get(endpoint);
+    return shard != null && shard.isHealthy(this.clock.millis());
+  }
+
+  /**
+   * Return the number of items that were sent to another endpoint than the one they
+   * hash to, as that endpoint was unhealthy.
+   * @return the number of items that failed over
+   */
+  long getFailoverCount() {
+    return this.failovers.sum();
+  }
+
+  @Override
+  public String getClientId() {
+    return this.shards.values().iterator().next().sender.getClientId();
+  }
+
+  @Override
+  public void sendMetric(String name, double value, Long timestamp, String source, Map<String, String> tags)
+      throws IOException {
+    send(seriesHash(name, source, tags), (sender) -> sender.sendMetric(name, value, timestamp, source, tags));
+  }
+
+  @Override
+  public void sendFormattedMetric(String point) throws IOException {
+    send(mix(metricName(point).hashCode()), (sender) -> sender.sendFormattedMetric(point));
+  }
+
+  @Override
+  public void sendDistribution(String name, List<Pair<Double, Integer>> centroids,
+      Set<HistogramGranularity> histogramGranularities, Long timestamp, String source, Map<String, String> tags)
+      throws IOException {
+    send(seriesHash(name, source, tags), (sender) -> sender.sendDistribution(name, centroids,
+        histogramGranularities, timestamp, source, tags));
+  }
+
+  @Override
+  public void sendSpan(String name, long startMillis, long durationMillis, String source, UUID traceId,
+      UUID spanId, List<UUID> parents, List<UUID> followsFrom, List<Pair<String, String>> tags,
+      List<SpanLog> spanLogs) throws IOException {
+    long hash = mix(traceId.getMostSignificantBits() ^ traceId.getLeastSignificantBits());
+    send(hash, (sender) -> sender.sendSpan(name, startMillis, durationMillis, source, traceId, spanId, parents,
+        followsFrom, tags, spanLogs));
+  }
+
+  @Override
+  public void sendEvent(String name, long startMillis, long endMillis, String source, Map<String, String> tags,
+      Map<String, String> annotations) throws IOException {
+    send(mix(name.hashCode()),
+        (sender) -> sender.sendEvent(name, startMillis, endMillis, source, tags, annotations));
+  }
+
+  @Override
+  public void sendLog(String name, double value, Long timestamp, String source, Map<String, String> tags)
+      throws IOException {
+    send(mix(name.hashCode()), (sender) -> sender.sendLog(name, value, timestamp, source, tags));
+  }
+
+  @Override
+  public void flush() throws IOException {
+    forEachSender(WavefrontSender::flush);
+  }
+
+  @Override
+  public int getFailureCount() {
+    int failureCount = 0;
+    for (Shard shard : this.shards.values()) {
+      failureCount += shard.sender.getFailureCount();
+    }
+    return failureCount;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (this.healthChecks != null) {
+      this.healthChecks.shutdownNow();
+    }
+    forEachSender(WavefrontSender::close);
+  }
+
+  private void send(long hash, SenderAction action) throws IOException {
+    long now = this.clock.millis();
+    Shard shard = select(hash, now);
+    try {
+      action.apply(shard.sender);
+    }
+    catch (IOException ex) {
+      shard.markUnhealthy(now + this.retryInterval.toMillis());
+      Shard fallback = select(hash, now);
+      if (fallback == shard) {
+        throw ex;
+      }
+      action.apply(fallback.sender);
+    }
+  }
+
+  private Shard select(long hash, long now) {
+    Map.Entry<Long, Shard> entry = this.ring.ceilingEntry(hash);
+    Shard primary = ((entry != null) ? entry : this.ring.firstEntry()).getValue();
+    if (primary.isHealthy(now)) {
+      return primary;
+    }
+    Shard fallback = findHealthy(this.ring.tailMap(hash, true).values(), now);
+    if (fallback == null) {
+      fallback = findHealthy(this.ring.headMap(hash, false).values(), now);
+    }
+    if (fallback == null) {
+      return primary;
+    }
+    this.failovers.increment();
+    return fallback;
+  }
+
+  private Shard findHealthy(Collection<Shard> candidates, long now) {
+    for (Shard candidate : candidates) {
+      if (candidate.isHealthy(now)) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Check the health of every endpoint. Connecting to an endpoint may block, so this is
+   * not meant to be invoked when data is sent or flushed.
+   */
+  void checkHealth() {
+    long now = this.clock.millis();
+    for (Shard shard : this.shards.values()) {
+      boolean newFailures = shard.hasNewFailures();
+      if (newFailures || !this.healthCheck.test(shard.endpoint)) {
+        shard.markUnhealthy(now + this.retryInterval.toMillis());
+      }
+    }
+  }
+
+  private void forEachSender(SenderAction action) throws IOException {
+    IOException failure = null;
+    for (Shard shard : this.shards.values()) {
+      try {
+        action.apply(shard.sender);
+      }
+      catch (IOException ex) {
+        if (failure == null) {
+          failure = ex;
+        }
+        else {
+          failure.addSuppressed(ex);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Return whether a connection can be established to the specified endpoint.
+   * @param endpoint the endpoint, for instance "proxy://host:2878"
+   * @return {@code true} if the endpoint accepts connections
+   */
+  static boolean isReachable(String endpoint) {
+    try (Socket socket = new Socket()) {
+      URI uri = URI.create(endpoint);
+      socket.connect(new InetSocketAddress(uri.getHost(), getPort(uri)), (int) CONNECT_TIMEOUT.toMillis());
+      return true;
+    }
+    catch (IOException | IllegalArgumentException ex) {
+      return false;
+    }
+  }
+
+  private static int getPort(URI uri) {
+    if (uri.getPort() != -1) {
+      return uri.getPort();
+    }
+    if ("proxy".equals(uri.getScheme())) {
+      return 2878;
+    }
+    return "https".equals(uri.getScheme()) ? 443 : 80;
+  }
+
+  private static long seriesHash(String name, String source, Map<String, String> tags) {
+    return mix((name.hashCode() * 31L + Objects.hashCode(source)) * 31L + Objects.hashCode(tags));
+  }
+
+  private static String metricName(String point) {
+    int end = point.indexOf(' ');
+    return (end != -1) ? point.substring(0, end) : point;
+  }
+
+  /**
+   * Spread the bits of the specified value, see MurmurHash3's 64-bit finalizer.
+   */
+  private static long mix(long value) {
+    long hash = value;
+    hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+    hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return hash ^ (hash >>> 33);
+  }
+
+  @FunctionalInterface
+  private interface SenderAction {
+
+    void apply(WavefrontSender sender) throws IOException;
+
+  }
+
+  private static final class Shard {
+
+    private final String endpoint;
+
+    private final WavefrontSender sender;
+
+    private int failureCount;
+
+    private volatile long unhealthyUntil;
+
+    Shard(String endpoint, WavefrontSender sender) {
+      this.endpoint = endpoint;
+      this.sender = sender;
+      this.failureCount = sender.getFailureCount();
+    }
+
+    boolean isHealthy(long now) {
+      return now >= this.unhealthyUntil;
+    }
+
+    void markUnhealthy(long until) {
+      this.unhealthyUntil = until;
+    }
+
+    synchronized boolean hasNewFailures() {
+      int failureCount = this.sender.getFailureCount();
+      boolean newFailures = failureCount > this.failureCount;
+      this.failureCount = failureCount;
+      return newFailures;
+    }
+
+  }
+
+}
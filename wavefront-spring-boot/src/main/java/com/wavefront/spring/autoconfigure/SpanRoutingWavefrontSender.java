@@ -0,0 +1,84 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+import com.wavefront.sdk.common.Pair;
+import com.wavefront.sdk.common.WavefrontSender;
+import com.wavefront.sdk.entities.tracing.SpanLog;
+
+/**
+ * A {@link WavefrontSender} that sends spans and span logs with a dedicated sender, so
+ * that they are buffered and flushed according to their own settings. Any other data is
+ * sent with the delegate.
+ */
+class SpanRoutingWavefrontSender extends DelegatingWavefrontSender {
+
+  private final WavefrontSender spanSender;
+
+  SpanRoutingWavefrontSender(WavefrontSender delegate, WavefrontSender spanSender) {
+    super(delegate);
+    this.spanSender = spanSender;
+  }
+
+  /**
+   * Return the {@link WavefrontSender} tracing should use for the specified sender. If
+   * spans are routed to a dedicated sender, tracing uses it for all its data, including
+   * the metrics it derives from spans. Otherwise, tracing uses the specified sender.
+   * @param sender the sender
+   * @return the sender to use for tracing
+   */
+  static WavefrontSender getTracingSender(WavefrontSender sender) {
+    WavefrontSender candidate = sender;
+    while (candidate instanceof DelegatingWavefrontSender) {
+      if (candidate instanceof SpanRoutingWavefrontSender) {
+        return ((SpanRoutingWavefrontSender) candidate).getSpanSender();
+      }
+      candidate = ((DelegatingWavefrontSender) candidate).getDelegate();
+    }
+    return sender;
+  }
+
+  /**
+   * Return the {@link WavefrontSender} spans are sent with.
+   * @return the span sender
+   */
+  WavefrontSender getSpanSender() {
+    return this.spanSender;
+  }
+
+  @Override
+  public void sendSpan(String name, long startMillis, long durationMillis, String source, UUID traceId,
+      UUID spanId, List<UUID> parents, List<UUID> followsFrom, List<Pair<String, String>> tags,
+      List<SpanLog> spanLogs) throws IOException {
+    this.spanSender.sendSpan(name, startMillis, durationMillis, source, traceId, spanId, parents, followsFrom,
+        tags, spanLogs);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    try {
+      super.flush();
+    }
+    finally {
+      this.spanSender.flush();
+    }
+  }
+
+  @Override
+  public int getFailureCount() {
+    return super.getFailureCount() + this.spanSender.getFailureCount();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      super.close();
+    }
+    finally {
+      this.spanSender.close();
+    }
+  }
+
+}
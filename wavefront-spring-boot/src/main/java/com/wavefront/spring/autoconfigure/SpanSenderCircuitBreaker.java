@@ -0,0 +1,162 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import com.wavefront.sdk.common.WavefrontSender;
+
+/**
+ * A circuit breaker that tells whether spans should be handed to a
+ * {@link WavefrontSender}, so that spans are shed rather than sent when the sender cannot
+ * keep up.
+ * <p>
+ * The sender is considered unhealthy over a check interval if sending a span failed or if
+ * its failure count increased. Spans that the SDK drops because its buffer is full are
+ * only counted by its internal metrics, which are reported to Wavefront but not exposed
+ * to the application, so a full buffer is noticed once flushing it fails.
+ * <p>
+ * The circuit opens after a number of consecutive unhealthy intervals and stays open for
+ * some time. It is then half-open: spans are sent again and the next interval decides
+ * whether the circuit closes or opens again.
+ */
+class SpanSenderCircuitBreaker {
+
+  private static final Duration CHECK_INTERVAL = Duration.ofSeconds(5);
+
+  private static final int FAILURE_THRESHOLD = 2;
+
+  private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+  private final WavefrontSender sender;
+
+  private final long checkInterval;
+
+  private final int failureThreshold;
+
+  private final long openDuration;
+
+  private final Clock clock;
+
+  private volatile State state = State.CLOSED;
+
+  private volatile long openUntil;
+
+  private long intervalEnd;
+
+  private boolean unhealthy;
+
+  private int unhealthyIntervals;
+
+  private int failureCount;
+
+  SpanSenderCircuitBreaker(WavefrontSender sender) {
+    this(sender, CHECK_INTERVAL, FAILURE_THRESHOLD, OPEN_DURATION, Clock.systemUTC());
+  }
+
+  SpanSenderCircuitBreaker(WavefrontSender sender, Duration checkInterval, int failureThreshold,
+      Duration openDuration, Clock clock) {
+    this.sender = sender;
+    this.checkInterval = checkInterval.toMillis();
+    this.failureThreshold = failureThreshold;
+    this.openDuration = openDuration.toMillis();
+    this.clock = clock;
+    this.failureCount = sender.getFailureCount();
+    this.intervalEnd = clock.millis() + this.checkInterval;
+  }
+
+  /**
+   * Return the current state of the circuit.
+   * @return the state
+   */
+  State getState() {
+    return this.state;
+  }
+
+  /**
+   * Return whether a span should be sent. Half-opens the circuit if it has been open
+   * long enough.
+   * @return {@code true} if the span should be sent, {@code false} if it should be shed
+   */
+  boolean allowRequest() {
+    if (this.state != State.OPEN) {
+      return true;
+    }
+    long now = this.clock.millis();
+    if (now < this.openUntil) {
+      return false;
+    }
+    halfOpen(now);
+    return true;
+  }
+
+  /**
+   * Record that a span was handed to the sender.
+   */
+  void recordSuccess() {
+    record(false);
+  }
+
+  /**
+   * Record that the sender failed to accept a span.
+   */
+  void recordFailure() {
+    record(true);
+  }
+
+  private synchronized void halfOpen(long now) {
+    if (this.state == State.OPEN) {
+      this.state = State.HALF_OPEN;
+      this.unhealthy = false;
+      this.failureCount = this.sender.getFailureCount();
+      this.intervalEnd = now + this.checkInterval;
+    }
+  }
+
+  private synchronized void record(boolean failed) {
+    if (failed) {
+      this.unhealthy = true;
+    }
+    long now = this.clock.millis();
+    if (now < this.intervalEnd) {
+      return;
+    }
+    int failureCount = this.sender.getFailureCount();
+    boolean unhealthy = this.unhealthy || failureCount > this.failureCount;
+    this.failureCount = failureCount;
+    this.unhealthy = false;
+    this.intervalEnd = now + this.checkInterval;
+    if (!unhealthy) {
+      this.unhealthyIntervals = 0;
+      this.state = State.CLOSED;
+      return;
+    }
+    this.unhealthyIntervals++;
+    if (this.state == State.HALF_OPEN || this.unhealthyIntervals >= this.failureThreshold) {
+      this.openUntil = now + this.openDuration;
+      this.state = State.OPEN;
+    }
+  }
+
+  /**
+   * The state of the circuit, ordered by severity.
+   */
+  enum State {
+
+    /**
+     * Spans are sent.
+     */
+    CLOSED,
+
+    /**
+     * Spans are sent again to check whether the sender has recovered.
+     */
+    HALF_OPEN,
+
+    /**
+     * Spans are shed.
+     */
+    OPEN
+
+  }
+
+}
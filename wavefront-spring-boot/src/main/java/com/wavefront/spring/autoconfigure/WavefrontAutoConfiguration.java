@@ -13,12 +13,13 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Import;
 import org.springframework.core.env.Environment;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 
 /**
- * {@link EnableAutoConfiguration Auto-configuration} to integrate with Wavefront metrics
- * and tracing.
+ * {@link EnableAutoConfiguration Auto-configuration} for the {@link ApplicationTags} of
+ * the application. Metrics and tracing are configured by separate auto-configurations.
  *
  * @author Stephane Nicoll
  */
@@ -26,16 +27,23 @@ import org.springframework.core.env.Environment;
 @ConditionalOnClass(ApplicationTags.class)
 @EnableConfigurationProperties(WavefrontProperties.class)
 @AutoConfigureAfter(WavefrontMetricsExportAutoConfiguration.class)
-@Import({ WavefrontMetricsConfiguration.class, WavefrontTracingConfiguration.class })
 public class WavefrontAutoConfiguration {
 
   @Bean
   @ConditionalOnMissingBean
   public ApplicationTags wavefrontApplicationTags(Environment environment,
       WavefrontProperties properties,
-      ObjectProvider<ApplicationTagsBuilderCustomizer> customizers) {
-    return new ApplicationTagsFactory(customizers.orderedStream().collect(Collectors.toList()))
-        .createFromProperties(environment, properties);
+      ObjectProvider<ApplicationTagsBuilderCustomizer> customizers,
+      ObjectProvider<ApplicationStartup> applicationStartup) {
+    StartupStep step = applicationStartup.getIfAvailable(() -> ApplicationStartup.DEFAULT)
+        .start("wavefront.application-tags.create");
+    try {
+      return new ApplicationTagsFactory(customizers.orderedStream().collect(Collectors.toList()))
+          .createFromProperties(environment, properties);
+    }
+    finally {
+      step.end();
+    }
   }
 
 }
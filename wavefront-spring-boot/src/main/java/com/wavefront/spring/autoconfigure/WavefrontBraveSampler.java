@@ -0,0 +1,28 @@
+package com.wavefront.spring.autoconfigure;
+
+import brave.sampler.RateLimitingSampler;
+import brave.sampler.Sampler;
+
+/**
+ * A Brave {@link Sampler} that applies the Wavefront sampling settings when a trace
+ * starts, so that no span is recorded for a trace that is not sampled. Traces within the
+ * probability of the {@link DynamicSampler} are sampled, up to an optional number of
+ * traces per second.
+ */
+class WavefrontBraveSampler extends Sampler {
+
+  private final DynamicSampler sampler;
+
+  private final Sampler rateLimiter;
+
+  WavefrontBraveSampler(DynamicSampler sampler, Integer rate) {
+    this.sampler = sampler;
+    this.rateLimiter = (rate != null) ? RateLimitingSampler.create(rate) : null;
+  }
+
+  @Override
+  public boolean isSampled(long traceId) {
+    return this.sampler.sampleEarly(traceId) && (this.rateLimiter == null || this.rateLimiter.isSampled(traceId));
+  }
+
+}
@@ -0,0 +1,66 @@
+package com.wavefront.spring.autoconfigure;
+
+import com.wavefront.sdk.appagent.jvm.reporter.WavefrontJvmReporter;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+/**
+ * {@link SmartLifecycle} that starts the {@link WavefrontJvmReporter} once the context
+ * has been refreshed rather than when the bean is created, and stops it after tracing
+ * has been flushed.
+ */
+class WavefrontJvmReporterLifecycle implements SmartLifecycle {
+
+  /**
+   * The phase of the JVM reporter, stopped after {@link WavefrontSleuthSpanHandler#PHASE
+   * tracing}.
+   */
+  static final int PHASE = WavefrontSleuthSpanHandler.PHASE - 1024;
+
+  private final WavefrontJvmReporter reporter;
+
+  private final ApplicationStartup applicationStartup;
+
+  private final String reportingInterval;
+
+  private volatile boolean running;
+
+  WavefrontJvmReporterLifecycle(WavefrontJvmReporter reporter, ApplicationStartup applicationStartup,
+      String reportingInterval) {
+    this.reporter = reporter;
+    this.applicationStartup = applicationStartup;
+    this.reportingInterval = reportingInterval;
+  }
+
+  @Override
+  public void start() {
+    StartupStep step = this.applicationStartup.start("wavefront.metrics.jvm-reporter.start")
+        .tag("reportingInterval", this.reportingInterval);
+    try {
+      this.reporter.start();
+      this.running = true;
+    }
+    finally {
+      step.end();
+    }
+  }
+
+  @Override
+  public void stop() {
+    this.running = false;
+    this.reporter.stop();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return this.running;
+  }
+
+  @Override
+  public int getPhase() {
+    return PHASE;
+  }
+
+}
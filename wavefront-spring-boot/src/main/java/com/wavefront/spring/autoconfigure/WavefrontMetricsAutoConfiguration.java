@@ -0,0 +1,180 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.wavefront.sdk.appagent.jvm.reporter.WavefrontJvmReporter;
+import com.wavefront.sdk.common.WavefrontSender;
+import com.wavefront.sdk.common.application.ApplicationTags;
+import com.wavefront.spring.autoconfigure.WavefrontProperties.Metrics.Jvm;
+import com.wavefront.spring.autoconfigure.WavefrontProperties.Metrics.Jvm.Group;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.wavefront.WavefrontConfig;
+import io.micrometer.wavefront.WavefrontMeterRegistry;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.metrics.MeterRegistryCustomizer;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.wavefront.WavefrontMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.NoneNestedConditions;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.metrics.ApplicationStartup;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for Wavefront metrics.
+ *
+ * @author Stephane Nicoll
+ * @author Tommy Ludwig
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass({ ApplicationTags.class, WavefrontSender.class, WavefrontConfig.class })
+@ConditionalOnBean(WavefrontSender.class)
+@EnableConfigurationProperties(WavefrontProperties.class)
+@AutoConfigureAfter({ WavefrontMetricsExportAutoConfiguration.class, WavefrontAutoConfiguration.class })
+public class WavefrontMetricsAutoConfiguration {
+
+  @Configuration(proxyBeanMethods = false)
+  @ConditionalOnMissingBean(WavefrontJvmReporter.class)
+  @ConditionalOnProperty(name = "wavefront.metrics.extract-jvm-metrics", matchIfMissing = true)
+  @Conditional(JvmReporterCollectorCondition.class)
+  static class JvmReporterConfiguration {
+
+    @Bean
+    WavefrontJvmReporter wavefrontJvmReporter(WavefrontSender wavefrontSender, ApplicationTags applicationTags,
+        WavefrontConfig wavefrontConfig, WavefrontProperties properties) {
+      Jvm jvm = properties.getMetrics().getJvm();
+      WavefrontSender sender = jvm.getGroups().containsAll(EnumSet.allOf(Group.class)) ? wavefrontSender
+          : new JvmMetricsFilteringWavefrontSender(wavefrontSender, jvm.getGroups());
+      return new WavefrontJvmReporter.Builder(applicationTags)
+          .withSource(wavefrontConfig.source())
+          .reportingIntervalSeconds(toSeconds(jvm.getReportingInterval())).build(sender);
+    }
+
+    private static int toSeconds(Duration interval) {
+      if (interval.compareTo(Duration.ofSeconds(1)) < 0) {
+        throw new IllegalStateException("Reporting interval must be at least 1s, got " + interval);
+      }
+      // round up so that a fraction of a second is never truncated to a zero period
+      long seconds = interval.getSeconds() + ((interval.getNano() > 0) ? 1 : 0);
+      return Math.toIntExact(seconds);
+    }
+
+    @Bean
+    WavefrontJvmReporterLifecycle wavefrontJvmReporterLifecycle(WavefrontJvmReporter wavefrontJvmReporter,
+        WavefrontProperties properties, ObjectProvider<ApplicationStartup> applicationStartup) {
+      return new WavefrontJvmReporterLifecycle(wavefrontJvmReporter,
+          applicationStartup.getIfAvailable(() -> ApplicationStartup.DEFAULT),
+          properties.getMetrics().getJvm().getReportingInterval().toString());
+    }
+
+  }
+
+  @Configuration(proxyBeanMethods = false)
+  @ConditionalOnClass({ WavefrontMeterRegistry.class, MeterRegistryCustomizer.class })
+  static class MicrometerConfiguration {
+
+    @Bean
+    static WavefrontSenderPostProcessor wavefrontSenderPostProcessor(
+        ObjectProvider<WavefrontProperties> properties, ObjectProvider<WavefrontConfig> wavefrontConfig,
+        ConfigurableEnvironment environment) {
+      return new WavefrontSenderPostProcessor(properties, wavefrontConfig, environment);
+    }
+
+    @Bean
+    WavefrontSenderMetrics wavefrontSenderMetrics(WavefrontSender wavefrontSender) {
+      return new WavefrontSenderMetrics(wavefrontSender);
+    }
+
+    @Bean
+    MeterRegistryCustomizer<WavefrontMeterRegistry> wavefrontTagsMeterRegistryCustomizer(
+        ObjectProvider<ApplicationTags> applicationTags) {
+      return (registry) -> applicationTags
+          .ifUnique((appTags) -> registry.config().commonTags(createTagsFrom(appTags)));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "wavefront.metrics.jvm.collector", havingValue = "reporter")
+    MeterRegistryCustomizer<WavefrontMeterRegistry> wavefrontJvmMetricsMeterRegistryCustomizer() {
+      return (registry) -> registry.config().meterFilter(MeterFilter.denyNameStartsWith("jvm."));
+    }
+
+    @Bean
+    @ConditionalOnClass(name = JfrMetrics.RECORDING_STREAM_CLASS)
+    @ConditionalOnProperty(name = "wavefront.metrics.jfr.enabled", havingValue = "true")
+    JfrMetrics wavefrontJfrMetrics(WavefrontProperties properties) {
+      return new JfrMetrics(properties.getMetrics().getJfr().getThreshold());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "wavefront.metrics.cardinality-limit.enabled", havingValue = "true")
+    MeterRegistryCustomizer<WavefrontMeterRegistry> wavefrontCardinalityLimitMeterRegistryCustomizer(
+        WavefrontProperties properties, ObjectProvider<ApplicationTags> applicationTags) {
+      return (registry) -> {
+        Set<String> applicationTagKeys = new HashSet<>();
+        applicationTags.ifUnique((appTags) -> createTagsFrom(appTags)
+            .forEach((tag) -> applicationTagKeys.add(tag.getKey())));
+        CardinalityLimitingMeterFilter filter = new CardinalityLimitingMeterFilter(
+            properties.getMetrics().getCardinalityLimit(), applicationTagKeys);
+        registry.config().meterFilter(filter);
+        FunctionCounter.builder("wavefront.metrics.cardinality.rejected", filter,
+            CardinalityLimitingMeterFilter::getRejectedCount)
+            .description("Number of meter registrations that exceeded a series limit")
+            .register(registry);
+        Gauge.builder("wavefront.metrics.cardinality.series", filter,
+            CardinalityLimitingMeterFilter::getSeriesCount)
+            .description("Number of series admitted by the cardinality limit")
+            .register(registry);
+      };
+    }
+
+    private Iterable<Tag> createTagsFrom(ApplicationTags applicationTags) {
+      Map<String, String> tags = new HashMap<>();
+      PropertyMapper mapper = PropertyMapper.get().alwaysApplyingWhenNonNull();
+      mapper.from(applicationTags::getApplication).to((application) -> tags.put("application", application));
+      mapper.from(applicationTags::getService).to((service) -> tags.put("service", service));
+      mapper.from(applicationTags::getCluster).to((cluster) -> tags.put("cluster", cluster));
+      mapper.from(applicationTags::getShard).to((shard) -> tags.put("shard", shard));
+      if (applicationTags.getCustomTags() != null) {
+        tags.putAll(applicationTags.getCustomTags());
+      }
+      return Tags.of(tags.entrySet().stream().map((entry) -> Tag.of(entry.getKey(), entry.getValue()))
+          .collect(Collectors.toList()));
+    }
+  }
+
+  /**
+   * Condition that does not match if JVM metrics are only collected by Micrometer.
+   */
+  static class JvmReporterCollectorCondition extends NoneNestedConditions {
+
+    JvmReporterCollectorCondition() {
+      super(ConfigurationPhase.REGISTER_BEAN);
+    }
+
+    @ConditionalOnProperty(name = "wavefront.metrics.jvm.collector", havingValue = "micrometer")
+    static class MicrometerCollector {
+
+    }
+
+  }
+
+}
@@ -1,10 +1,15 @@
 package com.wavefront.spring.autoconfigure;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.DeprecatedConfigurationProperty;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Advanced configuration properties for Wavefront.
@@ -21,12 +26,20 @@ public class WavefrontProperties {
    */
   private Boolean freemiumAccount;
 
+  /**
+   * Whether to provision a freemium account in the background rather than during
+   * startup. Metrics are only exported once an api token is available.
+   */
+  private boolean asyncAccountProvisioning;
+
   private final Application application = new Application();
 
   private final Metrics metrics = new Metrics();
 
   private final Tracing tracing = new Tracing();
 
+  private final Sender sender = new Sender();
+
   public Boolean getFreemiumAccount() {
     return this.freemiumAccount;
   }
@@ -35,6 +48,14 @@ public class WavefrontProperties {
     this.freemiumAccount = freemiumAccount;
   }
 
+  public boolean isAsyncAccountProvisioning() {
+    return this.asyncAccountProvisioning;
+  }
+
+  public void setAsyncAccountProvisioning(boolean asyncAccountProvisioning) {
+    this.asyncAccountProvisioning = asyncAccountProvisioning;
+  }
+
   public Application getApplication() {
     return this.application;
   }
@@ -47,6 +68,10 @@ public class WavefrontProperties {
     return this.tracing;
   }
 
+  public Sender getSender() {
+    return this.sender;
+  }
+
   public static class Application {
 
     public static String DEFAULT_SERVICE_NAME = "unnamed_service";
@@ -113,6 +138,14 @@ public class WavefrontProperties {
      */
     private boolean extractJvmMetrics = true;
 
+    private final Jvm jvm = new Jvm();
+
+    private final Jfr jfr = new Jfr();
+
+    private final CardinalityLimit cardinalityLimit = new CardinalityLimit();
+
+    private final Publishing publishing = new Publishing();
+
     public boolean isExtractJvmMetrics() {
       return this.extractJvmMetrics;
     }
@@ -121,10 +154,279 @@ public class WavefrontProperties {
       this.extractJvmMetrics = extractJvmMetrics;
     }
 
+    public Jvm getJvm() {
+      return this.jvm;
+    }
+
+    public Jfr getJfr() {
+      return this.jfr;
+    }
+
+    public CardinalityLimit getCardinalityLimit() {
+      return this.cardinalityLimit;
+    }
+
+    public Publishing getPublishing() {
+      return this.publishing;
+    }
+
+    /**
+     * Settings for the JVM metrics extracted by the Wavefront JVM reporter.
+     */
+    public static class Jvm {
+
+      /**
+       * Which collector provides the JVM metrics sent to Wavefront.
+       */
+      private Collector collector = Collector.BOTH;
+
+      /**
+       * Interval at which JVM metrics are reported. Must be at least one second, and is
+       * rounded up to whole seconds.
+       */
+      private Duration reportingInterval = Duration.ofMinutes(1);
+
+      /**
+       * JVM metric groups to report.
+       */
+      private Set<Group> groups = EnumSet.allOf(Group.class);
+
+      public Collector getCollector() {
+        return this.collector;
+      }
+
+      public void setCollector(Collector collector) {
+        this.collector = collector;
+      }
+
+      public Duration getReportingInterval() {
+        return this.reportingInterval;
+      }
+
+      public void setReportingInterval(Duration reportingInterval) {
+        this.reportingInterval = reportingInterval;
+      }
+
+      public Set<Group> getGroups() {
+        return this.groups;
+      }
+
+      public void setGroups(Set<Group> groups) {
+        this.groups = groups;
+      }
+
+      public enum Collector {
+
+        /**
+         * Send the JVM metrics of both the Wavefront JVM reporter and the Micrometer JVM
+         * binders.
+         */
+        BOTH,
+
+        /**
+         * Only send the JVM metrics of the Wavefront JVM reporter. Micrometer JVM meters
+         * are not registered with the Wavefront registry.
+         */
+        REPORTER,
+
+        /**
+         * Only send the JVM metrics of the Micrometer JVM binders. The Wavefront JVM
+         * reporter is not started.
+         */
+        MICROMETER
+
+      }
+
+      public enum Group {
+
+        /**
+         * Garbage collection counts and times.
+         */
+        GC,
+
+        /**
+         * Heap, non-heap and total memory usage.
+         */
+        MEMORY,
+
+        /**
+         * Usage of individual memory pools.
+         */
+        MEMORY_POOLS,
+
+        /**
+         * Thread counts per state.
+         */
+        THREADS,
+
+        /**
+         * Direct and mapped buffer pools.
+         */
+        BUFFER_POOLS,
+
+        /**
+         * Loaded and unloaded classes.
+         */
+        CLASSLOADING,
+
+        /**
+         * Uptime, current time and file descriptor usage.
+         */
+        RUNTIME
+
+      }
+
+    }
+
+    /**
+     * Settings for the JVM metrics recorded from JDK Flight Recorder events.
+     */
+    public static class Jfr {
+
+      /**
+       * Whether to record GC pauses, safepoints, thread parks and allocations from a JFR
+       * event stream. Requires JDK 14 or later.
+       */
+      private boolean enabled;
+
+      /**
+       * Minimum duration of the safepoint and thread park events that are recorded.
+       */
+      private Duration threshold = Duration.ofMillis(10);
+
+      public boolean isEnabled() {
+        return this.enabled;
+      }
+
+      public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+      }
+
+      public Duration getThreshold() {
+        return this.threshold;
+      }
+
+      public void setThreshold(Duration threshold) {
+        this.threshold = threshold;
+      }
+
+    }
+
+    /**
+     * Limits on the number of series the Wavefront registry can hold.
+     */
+    public static class CardinalityLimit {
+
+      /**
+       * Whether to limit the number of series registered with the Wavefront registry.
+       */
+      private boolean enabled;
+
+      /**
+       * Maximum number of series across all meters.
+       */
+      private int maxSeries = 10000;
+
+      /**
+       * Maximum number of series per meter name.
+       */
+      private int maxSeriesPerMeter = 1000;
+
+      /**
+       * How to handle a series that would exceed one of the limits.
+       */
+      private Mode mode = Mode.DENY;
+
+      public boolean isEnabled() {
+        return this.enabled;
+      }
+
+      public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+      }
+
+      public int getMaxSeries() {
+        return this.maxSeries;
+      }
+
+      public void setMaxSeries(int maxSeries) {
+        this.maxSeries = maxSeries;
+      }
+
+      public int getMaxSeriesPerMeter() {
+        return this.maxSeriesPerMeter;
+      }
+
+      public void setMaxSeriesPerMeter(int maxSeriesPerMeter) {
+        this.maxSeriesPerMeter = maxSeriesPerMeter;
+      }
+
+      public Mode getMode() {
+        return this.mode;
+      }
+
+      public void setMode(Mode mode) {
+        this.mode = mode;
+      }
+
+      public enum Mode {
+
+        /**
+         * Do not register the meter. Recording against it is a no-op.
+         */
+        DENY,
+
+        /**
+         * Record against an overflow series of the same meter, with the value of all
+         * tags but the application tags replaced by "overflow".
+         */
+        OVERFLOW
+
+      }
+
+    }
+
+    /**
+     * Settings for the metric points sent to Wavefront.
+     */
+    public static class Publishing {
+
+      /**
+       * Whether to only send metric points whose value changed since the series was last
+       * sent. Delta counters are always sent.
+       */
+      private boolean changedOnly;
+
+      /**
+       * Number of steps after which a series is sent again even if its value did not
+       * change, so that it does not go stale.
+       */
+      private int fullRefreshSteps = 10;
+
+      public boolean isChangedOnly() {
+        return this.changedOnly;
+      }
+
+      public void setChangedOnly(boolean changedOnly) {
+        this.changedOnly = changedOnly;
+      }
+
+      public int getFullRefreshSteps() {
+        return this.fullRefreshSteps;
+      }
+
+      public void setFullRefreshSteps(int fullRefreshSteps) {
+        this.fullRefreshSteps = fullRefreshSteps;
+      }
+
+    }
+
   }
 
   public static class Tracing {
 
+    private final Sampler sampler = new Sampler();
+
     private final Opentracing opentracing = new Opentracing();
 
     /**
@@ -133,6 +435,10 @@ public class WavefrontProperties {
      */
     private Set<String> redMetricsCustomTagKeys = new HashSet<>();
 
+    public Sampler getSampler() {
+      return this.sampler;
+    }
+
     public Opentracing getOpentracing() {
       return this.opentracing;
     }
@@ -145,6 +451,220 @@ public class WavefrontProperties {
       this.redMetricsCustomTagKeys = redMetricsCustomTagKeys;
     }
 
+    /**
+     * Sampling of the spans sent to Wavefront, with OpenTracing or Spring Cloud Sleuth.
+     * A span is sampled if any of the configured samplers samples it, and all spans are
+     * sampled if none is configured. Only the probability and the duration can be
+     * changed at runtime.
+     */
+    public static class Sampler {
+
+      /**
+       * Probabilistic rate (between 0.0 and 1.0) of traces whose spans should be
+       * sampled. If not specified, probabilistic sampling is not applied.
+       */
+      private Double probability;
+
+      /**
+       * Spans longer than this duration are sampled. If not specified, duration sampling
+       * is not applied.
+       */
+      private Duration duration;
+
+      /**
+       * Maximum number of traces sampled per second, with Spring Cloud Sleuth. If not
+       * specified, the number of sampled traces is not limited.
+       */
+      private Integer rate;
+
+      /**
+       * Whether requests that are not sampled should still be recorded locally, with
+       * Spring Cloud Sleuth, so that their spans contribute to RED metrics and can be
+       * sampled by duration, latency or error. When disabled, no span is recorded for these
+       * requests.
+       */
+      private boolean recordUnsampled = true;
+
+      /**
+       * Whether spans with an error should be sampled, with Spring Cloud Sleuth. Spans
+       * with an error are always sampled with OpenTracing.
+       */
+      private boolean errors;
+
+      private final Latency latency = new Latency();
+
+      private final Http http = new Http();
+
+      public Double getProbability() {
+        return this.probability;
+      }
+
+      public void setProbability(Double probability) {
+        this.probability = probability;
+      }
+
+      public Duration getDuration() {
+        return this.duration;
+      }
+
+      public void setDuration(Duration duration) {
+        this.duration = duration;
+      }
+
+      public Integer getRate() {
+        return this.rate;
+      }
+
+      public void setRate(Integer rate) {
+        this.rate = rate;
+      }
+
+      public boolean isRecordUnsampled() {
+        return this.recordUnsampled;
+      }
+
+      public void setRecordUnsampled(boolean recordUnsampled) {
+        this.recordUnsampled = recordUnsampled;
+      }
+
+      public boolean isErrors() {
+        return this.errors;
+      }
+
+      public void setErrors(boolean errors) {
+        this.errors = errors;
+      }
+
+      public Latency getLatency() {
+        return this.latency;
+      }
+
+      public Http getHttp() {
+        return this.http;
+      }
+
+      /**
+       * Sampling of spans that are slow compared to other spans of the same operation.
+       */
+      public static class Latency {
+
+        /**
+         * Quantile (between 0.0 and 1.0, exclusive) of the recent durations of an
+         * operation above which its spans are sampled, for instance 0.99. If not
+         * specified, latency sampling is not applied.
+         */
+        private Double quantile;
+
+        /**
+         * Maximum number of operations whose durations are tracked. Spans of other
+         * operations are not sampled by latency.
+         */
+        private int maxOperations = 100;
+
+        public Double getQuantile() {
+          return this.quantile;
+        }
+
+        public void setQuantile(Double quantile) {
+          this.quantile = quantile;
+        }
+
+        public int getMaxOperations() {
+          return this.maxOperations;
+        }
+
+        public void setMaxOperations(int maxOperations) {
+          this.maxOperations = maxOperations;
+        }
+
+      }
+
+      /**
+       * Sampling of incoming HTTP requests, with Spring Cloud Sleuth.
+       */
+      public static class Http {
+
+        /**
+         * Sampling rules of incoming HTTP requests. The first rule that matches a request
+         * decides whether it is sampled. Other requests are sampled according to the
+         * general settings.
+         */
+        private List<Rule> rules = new ArrayList<>();
+
+        public List<Rule> getRules() {
+          return this.rules;
+        }
+
+        public void setRules(List<Rule> rules) {
+          this.rules = rules;
+        }
+
+        /**
+         * A sampling rule of incoming HTTP requests.
+         */
+        public static class Rule {
+
+          /**
+           * Prefix of the path of the requests this rule applies to.
+           */
+          private String pathPrefix;
+
+          /**
+           * HTTP method of the requests this rule applies to. If not specified, the rule
+           * applies to any method.
+           */
+          private String method;
+
+          /**
+           * Probabilistic rate (between 0.0 and 1.0) of matching requests that should be
+           * sampled.
+           */
+          private Double probability;
+
+          /**
+           * Maximum number of matching requests sampled per second. Takes precedence over
+           * the probability.
+           */
+          private Integer rate;
+
+          public String getPathPrefix() {
+            return this.pathPrefix;
+          }
+
+          public void setPathPrefix(String pathPrefix) {
+            this.pathPrefix = pathPrefix;
+          }
+
+          public String getMethod() {
+            return this.method;
+          }
+
+          public void setMethod(String method) {
+            this.method = method;
+          }
+
+          public Double getProbability() {
+            return this.probability;
+          }
+
+          public void setProbability(Double probability) {
+            this.probability = probability;
+          }
+
+          public Integer getRate() {
+            return this.rate;
+          }
+
+          public void setRate(Integer rate) {
+            this.rate = rate;
+          }
+
+        }
+
+      }
+
+    }
+
     /**
      * OpenTracing-specific settings.
      */
@@ -152,10 +672,67 @@ public class WavefrontProperties {
 
       private final Sampler sampler = new Sampler();
 
+      private final Async async = new Async();
+
       public Sampler getSampler() {
         return this.sampler;
       }
 
+      public Async getAsync() {
+        return this.async;
+      }
+
+      /**
+       * Settings of the asynchronous reporting of finished spans.
+       */
+      public static class Async {
+
+        /**
+         * Whether finished spans should be handed to the reporters in the background,
+         * each reporter with its own queue and thread, rather than on the thread that
+         * finishes them. Defaults to enabled if a reporter other than a
+         * WavefrontSpanReporter is defined, as the latter already sends spans in the
+         * background.
+         */
+        private Boolean enabled;
+
+        /**
+         * Maximum number of finished spans waiting to be reported, per reporter. Spans
+         * finished while the queue of a reporter is full are dropped for that reporter.
+         */
+        private int maxQueueSize = 50000;
+
+        /**
+         * Maximum number of spans taken from the queue at once.
+         */
+        private int batchSize = 100;
+
+        public Boolean getEnabled() {
+          return this.enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+          this.enabled = enabled;
+        }
+
+        public int getMaxQueueSize() {
+          return this.maxQueueSize;
+        }
+
+        public void setMaxQueueSize(int maxQueueSize) {
+          this.maxQueueSize = maxQueueSize;
+        }
+
+        public int getBatchSize() {
+          return this.batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+          this.batchSize = batchSize;
+        }
+
+      }
+
       public static class Sampler {
 
         /**
@@ -170,6 +747,7 @@ public class WavefrontProperties {
          */
         private Duration duration;
 
+        @DeprecatedConfigurationProperty(replacement = "wavefront.tracing.sampler.probability")
         public Double getProbability() {
           return this.probability;
         }
@@ -178,6 +756,7 @@ public class WavefrontProperties {
           this.probability = probability;
         }
 
+        @DeprecatedConfigurationProperty(replacement = "wavefront.tracing.sampler.duration")
         public Duration getDuration() {
           return this.duration;
         }
@@ -192,4 +771,180 @@ public class WavefrontProperties {
 
   }
 
+  /**
+   * Settings of the auto-configured Wavefront sender. Take precedence over the sender
+   * settings of the Wavefront metrics export.
+   */
+  public static class Sender {
+
+    /**
+     * Number of points sent in a single request. Defaults to the batch size of the
+     * Wavefront metrics export.
+     */
+    private Integer batchSize;
+
+    /**
+     * Maximum number of points buffered per data type. Points sent while the buffer is
+     * full are dropped.
+     */
+    private Integer maxQueueSize;
+
+    /**
+     * Interval at which buffered points are flushed.
+     */
+    private Duration flushInterval;
+
+    /**
+     * Maximum size of a single request.
+     */
+    private DataSize messageSize;
+
+    /**
+     * Proxy endpoints to shard data across, for instance "proxy://host:2878". Spans are
+     * sharded by trace id and metrics by series. Defaults to the uri of the Wavefront
+     * metrics export.
+     */
+    private List<String> endpoints = new ArrayList<>();
+
+    /**
+     * Time during which an endpoint that failed to receive data is skipped, its new data
+     * being sent to the next endpoint instead. Data already buffered for the endpoint is
+     * not rerouted.
+     */
+    private Duration endpointRetryInterval = Duration.ofSeconds(30);
+
+    private final Spans spans = new Spans();
+
+    public Integer getBatchSize() {
+      return this.batchSize;
+    }
+
+    public void setBatchSize(Integer batchSize) {
+      this.batchSize = batchSize;
+    }
+
+    public Integer getMaxQueueSize() {
+      return this.maxQueueSize;
+    }
+
+    public void setMaxQueueSize(Integer maxQueueSize) {
+      this.maxQueueSize = maxQueueSize;
+    }
+
+    public Duration getFlushInterval() {
+      return this.flushInterval;
+    }
+
+    public void setFlushInterval(Duration flushInterval) {
+      this.flushInterval = flushInterval;
+    }
+
+    public DataSize getMessageSize() {
+      return this.messageSize;
+    }
+
+    public void setMessageSize(DataSize messageSize) {
+      this.messageSize = messageSize;
+    }
+
+    public List<String> getEndpoints() {
+      return this.endpoints;
+    }
+
+    public void setEndpoints(List<String> endpoints) {
+      this.endpoints = endpoints;
+    }
+
+    public Duration getEndpointRetryInterval() {
+      return this.endpointRetryInterval;
+    }
+
+    public void setEndpointRetryInterval(Duration endpointRetryInterval) {
+      this.endpointRetryInterval = endpointRetryInterval;
+    }
+
+    public Spans getSpans() {
+      return this.spans;
+    }
+
+    /**
+     * Settings for spans and span logs.
+     */
+    public static class Spans {
+
+      /**
+       * Whether tracing uses a dedicated sender, with its own buffers, flush thread and
+       * connection, so that spans do not compete with metric points. Implied if any other
+       * setting of spans is set.
+       */
+      private boolean dedicated;
+
+      /**
+       * Number of spans sent in a single request. Defaults to the batch size of the
+       * sender.
+       */
+      private Integer batchSize;
+
+      /**
+       * Maximum number of spans and span logs buffered. Defaults to the maximum queue
+       * size of the sender.
+       */
+      private Integer maxQueueSize;
+
+      /**
+       * Interval at which buffered spans are flushed. Defaults to the flush interval of
+       * the sender.
+       */
+      private Duration flushInterval;
+
+      /**
+       * Maximum size of a single request of spans. Defaults to the message size of the
+       * sender.
+       */
+      private DataSize messageSize;
+
+      public boolean isDedicated() {
+        return this.dedicated;
+      }
+
+      public void setDedicated(boolean dedicated) {
+        this.dedicated = dedicated;
+      }
+
+      public Integer getBatchSize() {
+        return this.batchSize;
+      }
+
+      public void setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+      }
+
+      public Integer getMaxQueueSize() {
+        return this.maxQueueSize;
+      }
+
+      public void setMaxQueueSize(Integer maxQueueSize) {
+        this.maxQueueSize = maxQueueSize;
+      }
+
+      public Duration getFlushInterval() {
+        return this.flushInterval;
+      }
+
+      public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+      }
+
+      public DataSize getMessageSize() {
+        return this.messageSize;
+      }
+
+      public void setMessageSize(DataSize messageSize) {
+        this.messageSize = messageSize;
+      }
+
+    }
+
+  }
+
 }
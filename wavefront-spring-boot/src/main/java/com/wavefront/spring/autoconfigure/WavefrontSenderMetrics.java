@@ -0,0 +1,74 @@
+package com.wavefront.spring.autoconfigure;
+
+import com.wavefront.sdk.common.WavefrontSender;
+import com.wavefront.sdk.common.clients.WavefrontClient;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * {@link MeterBinder} for a {@link WavefrontSender}. Binds the meters of every decorator
+ * applied to the sender, as well as the number of failures of the underlying sender. If
+ * spans are routed to a dedicated sender, its meters are bound as well. If data is
+ * sharded across several endpoints, the meters of each endpoint are bound, tagged with
+ * the endpoint.
+ * <p>
+ * The depth of the queues of a {@link WavefrontClient} and the number of items it drops
+ * are not bound: the SDK does not expose them.
+ */
+class WavefrontSenderMetrics implements MeterBinder {
+
+  private static final String DEFAULT_ENDPOINT = "default";
+
+  private final WavefrontSender wavefrontSender;
+
+  WavefrontSenderMetrics(WavefrontSender wavefrontSender) {
+    this.wavefrontSender = wavefrontSender;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    bind(registry, "default", this.wavefrontSender);
+  }
+
+  private void bind(MeterRegistry registry, String name, WavefrontSender wavefrontSender) {
+    WavefrontSender sender = wavefrontSender;
+    while (sender instanceof DelegatingWavefrontSender) {
+      if (sender instanceof MeterBinder) {
+        ((MeterBinder) sender).bindTo(registry);
+      }
+      if (sender instanceof SpanRoutingWavefrontSender) {
+        bind(registry, "spans", ((SpanRoutingWavefrontSender) sender).getSpanSender());
+      }
+      sender = ((DelegatingWavefrontSender) sender).getDelegate();
+    }
+    bindSender(registry, name, sender);
+  }
+
+  private void bindSender(MeterRegistry registry, String name, WavefrontSender sender) {
+    if (sender instanceof ShardedWavefrontSender) {
+      ShardedWavefrontSender shardedSender = (ShardedWavefrontSender) sender;
+      FunctionCounter.builder("wavefront.sender.failovers", shardedSender, ShardedWavefrontSender::getFailoverCount)
+          .description("Number of items sent to another endpoint as theirs was unhealthy").tag("sender", name)
+          .register(registry);
+      shardedSender.getSenders().forEach((endpoint, endpointSender) -> {
+        Gauge.builder("wavefront.sender.endpoint.healthy", shardedSender,
+            (target) -> target.isHealthy(endpoint) ? 1 : 0)
+            .description("Whether the endpoint is used to send data to Wavefront").tag("sender", name)
+            .tag("endpoint", endpoint).register(registry);
+        bindEndpointSender(registry, name, endpoint, endpointSender);
+      });
+    }
+    else {
+      bindEndpointSender(registry, name, DEFAULT_ENDPOINT, sender);
+    }
+  }
+
+  private void bindEndpointSender(MeterRegistry registry, String name, String endpoint, WavefrontSender sender) {
+    FunctionCounter.builder("wavefront.sender.failures", sender, WavefrontSender::getFailureCount)
+        .description("Number of failures to send data to Wavefront").tag("sender", name)
+        .tag("endpoint", endpoint).register(registry);
+  }
+
+}
@@ -0,0 +1,243 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.wavefront.sdk.common.WavefrontSender;
+import com.wavefront.sdk.common.clients.WavefrontClient.Builder;
+import com.wavefront.spring.autoconfigure.WavefrontProperties.Metrics.Publishing;
+import com.wavefront.spring.autoconfigure.WavefrontProperties.Sender.Spans;
+import io.micrometer.wavefront.WavefrontConfig;
+import io.micrometer.wavefront.WavefrontMeterRegistry;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.wavefront.WavefrontMetricsExportAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.wavefront.WavefrontProperties.Sender;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * {@link BeanPostProcessor} that decorates the {@link WavefrontSender} according to the
+ * publishing options of {@link WavefrontProperties}. The sender is left as is if no such
+ * option is enabled.
+ * <p>
+ * If the api token of the account is still being negotiated in the background, the
+ * auto-configured sender is not created. It is replaced by one that creates it once the
+ * api token is available.
+ * <p>
+ * If any of the {@code wavefront.sender} settings is set, the auto-configured sender is
+ * created with them rather than with the sender settings of the Wavefront metrics
+ * export alone. If several endpoints are configured, data is sharded across them.
+ * <p>
+ * The auto-configured sender is customized through its bean definition, as a
+ * {@link BeanFactoryPostProcessor}, so that the sender that is exposed is the one that is
+ * closed when the context is closed.
+ */
+class WavefrontSenderPostProcessor implements BeanFactoryPostProcessor, BeanPostProcessor {
+
+  private static final Duration DEFAULT_STEP = Duration.ofMinutes(1);
+
+  private static final String API_TOKEN_PROPERTY = "management.metrics.export.wavefront.api-token";
+
+  private static final String SENDER_PREFIX = "management.metrics.export.wavefront.sender";
+
+  private final ObjectProvider<WavefrontProperties> properties;
+
+  private final ObjectProvider<WavefrontConfig> wavefrontConfig;
+
+  private final ConfigurableEnvironment environment;
+
+  private final Set<String> suppliedBeanNames = new HashSet<>();
+
+  WavefrontSenderPostProcessor(ObjectProvider<WavefrontProperties> properties,
+      ObjectProvider<WavefrontConfig> wavefrontConfig, ConfigurableEnvironment environment) {
+    this.properties = properties;
+    this.wavefrontConfig = wavefrontConfig;
+    this.environment = environment;
+  }
+
+  @Override
+  public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+    if (!isCustomized(Binder.get(this.environment).bindOrCreate("wavefront", WavefrontProperties.class))) {
+      return;
+    }
+    for (String beanName : beanFactory.getBeanDefinitionNames()) {
+      BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+      if (isAutoConfiguredSender(definition) && definition instanceof AbstractBeanDefinition) {
+        ((AbstractBeanDefinition) definition).setInstanceSupplier(() -> decorate(createWavefrontSender()));
+        this.suppliedBeanNames.add(beanName);
+      }
+    }
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    if (bean instanceof WavefrontSender && !(bean instanceof DelegatingWavefrontSender)
+        && !this.suppliedBeanNames.contains(beanName)) {
+      return decorate((WavefrontSender) bean);
+    }
+    return bean;
+  }
+
+  private boolean isCustomized(WavefrontProperties properties) {
+    Publishing publishing = properties.getMetrics().getPublishing();
+    return getPendingApiTokenPropertySource() != null || hasSenderSettings(properties.getSender())
+        || publishing.isChangedOnly();
+  }
+
+  private WavefrontSender createWavefrontSender() {
+    WavefrontConfig config = this.wavefrontConfig.getObject();
+    DeferredApiTokenPropertySource propertySource = getPendingApiTokenPropertySource();
+    if (propertySource != null) {
+      return new DeferredWavefrontSender(propertySource.getApiToken(),
+          (apiToken) -> createWavefrontSender(config, apiToken));
+    }
+    return createWavefrontSender(config, config.apiToken());
+  }
+
+  private WavefrontSender decorate(WavefrontSender sender) {
+    Publishing publishing = this.properties.getObject().getMetrics().getPublishing();
+    if (publishing.isChangedOnly()) {
+      sender = new ChangedOnlyWavefrontSender(sender, getStep(), publishing.getFullRefreshSteps());
+    }
+    return sender;
+  }
+
+  private DeferredApiTokenPropertySource getPendingApiTokenPropertySource() {
+    PropertySource<?> propertySource = this.environment.getPropertySources()
+        .get(DeferredApiTokenPropertySource.NAME);
+    if (propertySource instanceof DeferredApiTokenPropertySource
+        && !StringUtils.hasText(this.environment.getProperty(API_TOKEN_PROPERTY))) {
+      return (DeferredApiTokenPropertySource) propertySource;
+    }
+    return null;
+  }
+
+  private WavefrontSender createWavefrontSender(WavefrontConfig config, String apiToken) {
+    WavefrontProperties.Sender settings = this.properties.getObject().getSender();
+    WavefrontSender sender = createWavefrontSender(config, apiToken, settings, (builder) -> {
+    });
+    Spans spans = settings.getSpans();
+    if (!hasDedicatedSpanSender(spans)) {
+      return sender;
+    }
+    WavefrontSender spanSender = createWavefrontSender(config, apiToken, settings,
+        (builder) -> applySettings(builder, spans.getBatchSize(), spans.getMaxQueueSize(),
+            spans.getFlushInterval(), spans.getMessageSize()));
+    return new SpanRoutingWavefrontSender(new MeteredWavefrontSender(sender, "default"),
+        new MeteredWavefrontSender(spanSender, "spans"));
+  }
+
+  private WavefrontSender createWavefrontSender(WavefrontConfig config, String apiToken,
+      WavefrontProperties.Sender settings, Consumer<Builder> customizer) {
+    if (settings.getEndpoints().isEmpty()) {
+      return createClient(config, config.uri(), apiToken, settings, customizer);
+    }
+    Map<String, WavefrontSender> senders = new LinkedHashMap<>();
+    for (String endpoint : settings.getEndpoints()) {
+      senders.put(endpoint, createClient(config, endpoint, apiToken, settings, customizer));
+    }
+    return new ShardedWavefrontSender(senders, settings.getEndpointRetryInterval());
+  }
+
+  private WavefrontSender createClient(WavefrontConfig config, String uri, String apiToken,
+      WavefrontProperties.Sender settings, Consumer<Builder> customizer) {
+    WavefrontConfig endpointConfig = new WavefrontConfig() {
+
+      @Override
+      public String get(String key) {
+        return null;
+      }
+
+      @Override
+      public String uri() {
+        return uri;
+      }
+
+      @Override
+      public String apiToken() {
+        return apiToken;
+      }
+
+      @Override
+      public int batchSize() {
+        return config.batchSize();
+      }
+
+      @Override
+      public Duration step() {
+        return config.step();
+      }
+
+    };
+    Builder builder = WavefrontMeterRegistry.getDefaultSenderBuilder(endpointConfig);
+    Sender sender = Binder.get(this.environment).bindOrCreate(SENDER_PREFIX, Sender.class);
+    applySettings(builder, null, sender.getMaxQueueSize(), sender.getFlushInterval(), sender.getMessageSize());
+    applySettings(builder, settings.getBatchSize(), settings.getMaxQueueSize(), settings.getFlushInterval(),
+        settings.getMessageSize());
+    customizer.accept(builder);
+    return builder.build();
+  }
+
+  private void applySettings(Builder builder, Integer batchSize, Integer maxQueueSize, Duration flushInterval,
+      DataSize messageSize) {
+    PropertyMapper mapper = PropertyMapper.get().alwaysApplyingWhenNonNull();
+    mapper.from(batchSize).to(builder::batchSize);
+    mapper.from(maxQueueSize).to(builder::maxQueueSize);
+    mapper.from(flushInterval).asInt(Duration::toMillis)
+        .to((millis) -> builder.flushInterval(millis, TimeUnit.MILLISECONDS));
+    mapper.from(messageSize).asInt(DataSize::toBytes).to(builder::messageSizeBytes);
+  }
+
+  private boolean hasSenderSettings(WavefrontProperties.Sender settings) {
+    return hasSettings(settings.getBatchSize(), settings.getMaxQueueSize(), settings.getFlushInterval(),
+        settings.getMessageSize()) || !settings.getEndpoints().isEmpty()
+        || hasDedicatedSpanSender(settings.getSpans());
+  }
+
+  private boolean hasDedicatedSpanSender(Spans spans) {
+    return spans.isDedicated() || hasSettings(spans.getBatchSize(), spans.getMaxQueueSize(),
+        spans.getFlushInterval(), spans.getMessageSize());
+  }
+
+  private boolean hasSettings(Object... settings) {
+    for (Object setting : settings) {
+      if (setting != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isAutoConfiguredSender(BeanDefinition definition) {
+    if (definition instanceof AnnotatedBeanDefinition) {
+      MethodMetadata factoryMethod = ((AnnotatedBeanDefinition) definition).getFactoryMethodMetadata();
+      return factoryMethod != null
+          && WavefrontMetricsExportAutoConfiguration.class.getName().equals(factoryMethod.getDeclaringClassName())
+          && WavefrontSender.class.getName().equals(factoryMethod.getReturnTypeName());
+    }
+    return false;
+  }
+
+  private Duration getStep() {
+    WavefrontConfig config = this.wavefrontConfig.getIfAvailable();
+    return (config != null) ? config.step() : DEFAULT_STEP;
+  }
+
+}
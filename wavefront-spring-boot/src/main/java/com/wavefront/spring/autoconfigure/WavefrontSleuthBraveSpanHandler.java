@@ -14,13 +14,27 @@ class WavefrontSleuthBraveSpanHandler extends SpanHandler implements Runnable, C
 
   final WavefrontSleuthSpanHandler spanHandler;
 
+  final boolean sampledAtHead;
+
   WavefrontSleuthBraveSpanHandler(WavefrontSleuthSpanHandler spanHandler) {
+    this(spanHandler, false);
+  }
+
+  /**
+   * Create a new instance.
+   * @param spanHandler the handler to delegate to
+   * @param sampledAtHead whether the sampler of the tracer applies the Wavefront sampling
+   * settings
+   */
+  WavefrontSleuthBraveSpanHandler(WavefrontSleuthSpanHandler spanHandler, boolean sampledAtHead) {
     this.spanHandler = spanHandler;
+    this.sampledAtHead = sampledAtHead;
   }
 
   @Override
   public boolean end(TraceContext context, MutableSpan span, Cause cause) {
-    return spanHandler.end(BraveTraceContext.fromBrave(context), BraveFinishedSpan.fromBrave(span));
+    return spanHandler.end(BraveTraceContext.fromBrave(context), BraveFinishedSpan.fromBrave(span),
+        this.sampledAtHead);
   }
 
   @Override
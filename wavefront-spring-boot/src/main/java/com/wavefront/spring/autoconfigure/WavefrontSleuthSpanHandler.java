@@ -32,6 +32,9 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.cloud.sleuth.TraceContext;
 import org.springframework.cloud.sleuth.exporter.FinishedSpan;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.util.StringUtils;
 
 import static com.wavefront.internal.SpanDerivedMetricsUtils.TRACING_DERIVED_PREFIX;
@@ -68,9 +71,15 @@ import static com.wavefront.sdk.common.Constants.SPAN_LOG_KEY;
  * {@link UUID#timestamp()} on UUIDs converted here, or in other Wavefront code, as it might
  * throw.
  */
-public final class WavefrontSleuthSpanHandler implements Runnable, Closeable {
+public final class WavefrontSleuthSpanHandler implements Runnable, Closeable, SmartLifecycle {
   private static final Log LOG = LogFactory.getLog(WavefrontSleuthSpanHandler.class);
 
+  /**
+   * The phase of the span handler, stopped after the web server so that the spans of
+   * in-flight requests are flushed.
+   */
+  static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 2048;
+
   // https://github.com/wavefrontHQ/wavefront-proxy/blob/3dd1fa11711a04de2d9d418e2269f0f9fb464f36/proxy/src/main/java/com/wavefront/agent/listeners/tracing/ZipkinPortUnificationHandler.java#L114-L114
   private static final String DEFAULT_SPAN_NAME = "defaultOperation";
 
@@ -91,16 +100,24 @@ public final class WavefrontSleuthSpanHandler implements Runnable, Closeable {
 
   private static final byte[] DECODING = buildDecodingArray();
 
-  final LinkedBlockingQueue<Pair<TraceContext, FinishedSpan>> spanBuffer;
+  // how long the sending thread waits for a span before checking whether it should stop
+  private static final long POLL_TIMEOUT_MILLIS = 100;
+
+  final LinkedBlockingQueue<PendingSpan> spanBuffer;
   final WavefrontSender wavefrontSender;
   final WavefrontInternalReporter wfInternalReporter;
   final Set<String> traceDerivedCustomTagKeys;
   final Counter spansDropped;
+  final Counter spansShed;
   final Counter spansReceived;
   final Counter reportErrors;
+  final DynamicSampler sampler;
+  final SpanSenderCircuitBreaker circuitBreaker;
   final Thread sendingThread;
 
   private volatile boolean stop = false;
+  private volatile boolean started = false;
+  private final ApplicationStartup applicationStartup;
   private final Set<Pair<Map<String, String>, String>> discoveredHeartbeatMetrics;
   private final ScheduledExecutorService heartbeatMetricsScheduledExecutorService;
 
@@ -112,31 +129,37 @@ public final class WavefrontSleuthSpanHandler implements Runnable, Closeable {
   WavefrontSleuthSpanHandler(int maxQueueSize, WavefrontSender wavefrontSender,
                              MeterRegistry meterRegistry, String source,
                              ApplicationTags applicationTags,
-                             WavefrontProperties wavefrontProperties) {
+                             WavefrontProperties wavefrontProperties,
+                             ApplicationStartup applicationStartup,
+                             DynamicSampler sampler) {
+    this(maxQueueSize, wavefrontSender, meterRegistry, source, applicationTags, wavefrontProperties,
+        applicationStartup, sampler, new SpanSenderCircuitBreaker(wavefrontSender));
+  }
+
+  WavefrontSleuthSpanHandler(int maxQueueSize, WavefrontSender wavefrontSender,
+                             MeterRegistry meterRegistry, String source,
+                             ApplicationTags applicationTags,
+                             WavefrontProperties wavefrontProperties,
+                             ApplicationStartup applicationStartup,
+                             DynamicSampler sampler,
+                             SpanSenderCircuitBreaker circuitBreaker) {
     this.wavefrontSender = wavefrontSender;
+    this.sampler = sampler;
+    this.circuitBreaker = circuitBreaker;
     this.applicationTags = applicationTags;
+    this.applicationStartup = applicationStartup;
     this.discoveredHeartbeatMetrics = Sets.newConcurrentHashSet();
 
     this.heartbeatMetricsScheduledExecutorService = Executors.newScheduledThreadPool(1,
         new NamedThreadFactory("sleuth-heart-beater").setDaemon(true));
 
-    // Emit Heartbeats Metrics every 1 min.
-    heartbeatMetricsScheduledExecutorService.scheduleAtFixedRate(() -> {
-      try {
-        reportHeartbeats(wavefrontSender, discoveredHeartbeatMetrics, WAVEFRONT_GENERATED_COMPONENT);
-      } catch (IOException e) {
-        LOG.warn("Cannot report heartbeat metric to wavefront");
-      }
-    }, 1, 60, TimeUnit.SECONDS);
-
     this.traceDerivedCustomTagKeys = new HashSet<>(
         wavefrontProperties.getTracing().getRedMetricsCustomTagKeys());
 
-    // Start the reporter
+    // The reporter is started with the first span
     wfInternalReporter = new WavefrontInternalReporter.Builder().
         prefixedWith(TRACING_DERIVED_PREFIX).withSource(DEFAULT_SOURCE).reportMinuteDistribution().
         build(wavefrontSender);
-    wfInternalReporter.start(1, TimeUnit.MINUTES);
 
     this.source = source;
     this.defaultTags = createDefaultTags(applicationTags);
@@ -151,18 +174,94 @@ public final class WavefrontSleuthSpanHandler implements Runnable, Closeable {
         sb -> (double) sb.remainingCapacity());
     this.spansReceived = meterRegistry.counter("reporter.spans.received");
     this.spansDropped = meterRegistry.counter("reporter.spans.dropped");
+    this.spansShed = meterRegistry.counter("reporter.spans.shed");
     this.reportErrors = meterRegistry.counter("reporter.errors");
+    // 0 when spans are sent, 1 while checking whether the sender has recovered, 2 when spans are shed
+    meterRegistry.gauge("reporter.circuit.state", circuitBreaker, cb -> (double) cb.getState().ordinal());
 
     this.sendingThread = new Thread(this, "wavefrontSpanReporter");
     this.sendingThread.setDaemon(true);
+  }
+
+  /**
+   * Start the background work of this handler: the sending thread, the heartbeats and
+   * the internal reporter. Invoked with the first span so that applications that do
+   * not record any span do not pay for it.
+   */
+  @Override
+  public synchronized void start() {
+    if (started || stop) {
+      return;
+    }
+    StartupStep internalReporterStep = applicationStartup.start("wavefront.tracing.internal-reporter.start");
+    wfInternalReporter.start(1, TimeUnit.MINUTES);
+    internalReporterStep.end();
+
+    // Emit Heartbeats Metrics every 1 min.
+    heartbeatMetricsScheduledExecutorService.scheduleAtFixedRate(() -> {
+      try {
+        reportHeartbeats(wavefrontSender, discoveredHeartbeatMetrics, WAVEFRONT_GENERATED_COMPONENT);
+      } catch (IOException e) {
+        LOG.warn("Cannot report heartbeat metric to wavefront");
+      }
+    }, 1, 60, TimeUnit.SECONDS);
+
+    StartupStep sendingThreadStep = applicationStartup.start("wavefront.tracing.span-handler.start");
     this.sendingThread.start();
+    sendingThreadStep.end();
+    started = true;
+  }
+
+  @Override
+  public void stop() {
+    close();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return started && !stop;
+  }
+
+  @Override
+  public boolean isAutoStartup() {
+    return false;
+  }
+
+  @Override
+  public int getPhase() {
+    return PHASE;
   }
 
   // Exact same behavior as WavefrontSpanReporter
   // https://github.com/wavefrontHQ/wavefront-opentracing-sdk-java/blob/f1f08d8daf7b692b9b61dcd5bc24ca6befa8e710/src/main/java/com/wavefront/opentracing/reporting/WavefrontSpanReporter.java#L163-L179
   public boolean end(TraceContext context, FinishedSpan span) {
+    return end(context, span, false);
+  }
+
+  /**
+   * Handle a finished span. If the sampling settings were applied when the trace started,
+   * a span of a sampled trace is sent as is, while a span of a trace that is not sampled
+   * was only recorded locally: it contributes to RED metrics and is sent only if it is
+   * sampled by duration, latency or error. Otherwise, the sampling settings apply now.
+   * While the sender cannot keep up, spans are shed before they are converted or sampled,
+   * and only contribute to RED metrics. Spans that end once the handler has stopped are
+   * counted as dropped.
+   * @param context the context of the span
+   * @param span the finished span
+   * @param sampledAtHead whether the sampling settings were applied when the trace started
+   * @return {@code true}, so that other handlers run
+   */
+  boolean end(TraceContext context, FinishedSpan span, boolean sampledAtHead) {
+    if (stop) {
+      // nothing consumes the buffer anymore
+      spansDropped.increment();
+      return true;
+    }
+    if (!started) {
+      start();
+    }
     spansReceived.increment();
-    if (!spanBuffer.offer(Pair.of(context, span))) {
+    if (!spanBuffer.offer(new PendingSpan(context, span, sampledAtHead))) {
       spansDropped.increment();
       if (LOG.isWarnEnabled()) {
         LOG.warn("Buffer full, dropping span: " + span);
@@ -190,7 +289,17 @@ public final class WavefrontSleuthSpanHandler implements Runnable, Closeable {
     }
   }
 
-  private void send(TraceContext context, FinishedSpan span) {
+  private void send(PendingSpan pendingSpan) {
+    TraceContext context = pendingSpan.context;
+    FinishedSpan span = pendingSpan.span;
+    if (!circuitBreaker.allowRequest()) {
+      // shed the span before converting it if the sender cannot keep up, RED metrics are
+      // still derived from the tags they need
+      spansShed.increment();
+      reportRedMetrics(context, getName(span), getDurationMicros(span),
+          new TagList(defaultTagKeys, defaultTags, span, traceDerivedCustomTagKeys));
+      return;
+    }
     String traceIdString = padLeftWithZeros(context.traceId(), TRACE_ID_HEX_SIZE);
     String traceIdHigh = traceIdString.substring(0, traceIdString.length() / 2);
     String traceIdLow = traceIdString.substring(traceIdString.length() / 2);
@@ -208,28 +317,53 @@ public final class WavefrontSleuthSpanHandler implements Runnable, Closeable {
     List<UUID> followsFrom = null;
 
     // https://github.com/wavefrontHQ/wavefront-proxy/blob/3dd1fa11711a04de2d9d418e2269f0f9fb464f36/proxy/src/main/java/com/wavefront/agent/listeners/tracing/ZipkinPortUnificationHandler.java#L344-L345
-    String name = span.getName();
-    if (name == null) name = DEFAULT_SPAN_NAME;
+    String name = getName(span);
 
     // Start and duration become 0L if unset. Any positive duration rounds up to 1 millis.
     long startMillis = span.getStartTimestamp() / 1000L, finishMillis = span.getEndTimestamp() / 1000L;
     long durationMillis = startMillis != 0 && finishMillis != 0L ? Math.max(finishMillis - startMillis, 1L) : 0L;
-    long durationMicros = span.getStartTimestamp() != 0L && span.getEndTimestamp() != 0L ?
-        span.getEndTimestamp() - span.getStartTimestamp() : 0;
+    long durationMicros = getDurationMicros(span);
 
-    List<SpanLog> spanLogs = convertAnnotationsToSpanLogs(span);
     TagList tags = new TagList(defaultTagKeys, defaultTags, span);
 
-    try {
-      wavefrontSender.sendSpan(name, startMillis, durationMillis, source, traceId, spanId,
-          parents, followsFrom, tags, spanLogs);
-    } catch (IOException | RuntimeException t) {
-      if (LOG.isDebugEnabled()) {
-        LOG.debug("error sending span " + context, t);
+    boolean sampled;
+    if (pendingSpan.sampledAtHead) {
+      // spans of traces that are not sampled are recorded locally only, sent if interesting
+      sampled = !Boolean.FALSE.equals(context.sampled()) || sampler.sampleLate(name, durationMillis, tags.isError);
+    } else {
+      // same trace id bits as the OpenTracing tracer, so that both sample the same traces
+      sampled = sampler.sample(name, traceId.getLeastSignificantBits(), durationMillis, tags.isError);
+    }
+    if (sampled) {
+      List<SpanLog> spanLogs = convertAnnotationsToSpanLogs(span);
+      try {
+        wavefrontSender.sendSpan(name, startMillis, durationMillis, source, traceId, spanId,
+            parents, followsFrom, tags, spanLogs);
+        circuitBreaker.recordSuccess();
+      } catch (IOException | RuntimeException t) {
+        reportErrors.increment();
+        circuitBreaker.recordFailure();
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("error sending span " + context, t);
+        }
       }
     }
 
     // report stats irrespective of span sampling.
+    reportRedMetrics(context, name, durationMicros, tags);
+  }
+
+  private static String getName(FinishedSpan span) {
+    String name = span.getName();
+    return (name != null) ? name : DEFAULT_SPAN_NAME;
+  }
+
+  private static long getDurationMicros(FinishedSpan span) {
+    return span.getStartTimestamp() != 0L && span.getEndTimestamp() != 0L ?
+        span.getEndTimestamp() - span.getStartTimestamp() : 0;
+  }
+
+  private void reportRedMetrics(TraceContext context, String name, long durationMicros, TagList tags) {
     if (wfInternalReporter != null) {
       // report converted metrics/histograms from the span
       try {
@@ -289,20 +423,35 @@ public final class WavefrontSleuthSpanHandler implements Runnable, Closeable {
   static final class TagList extends ArrayList<Pair<String, String>> {
     String componentTagValue = NULL_TAG_VAL;
     boolean isError; // See explanation here: https://github.com/openzipkin/brave/pull/1221
+    private final Set<String> keys;
 
     TagList(
         Set<String> defaultTagKeys,
         List<Pair<String, String>> defaultTags,
         FinishedSpan span
+    ){
+      this(defaultTagKeys, defaultTags, span, null);
+    }
+
+    /**
+     * Only keep the tags with the given keys, such as the ones RED metrics need. The
+     * component tag and error status are still parsed.
+     */
+    TagList(
+        Set<String> defaultTagKeys,
+        List<Pair<String, String>> defaultTags,
+        FinishedSpan span,
+        Set<String> keys
     ){
       super(defaultTags.size() + span.getTags().size());
+      this.keys = keys;
       // TODO: OTel doesn't have a notion of debug
       boolean debug = false;
       boolean hasAnnotations = span.getEvents().size() > 0;
       isError = span.getError() != null;
 
       int tagCount = span.getTags().size();
-      addAll(defaultTags);
+      defaultTags.forEach(this::add);
       for (int i = 0; i < tagCount; i++) {
         String tagKey = Iterators.get(span.getTags().keySet().iterator(), i);
         String tagValue = Iterators.get(span.getTags().values().iterator(), i);
@@ -347,6 +496,11 @@ public final class WavefrontSleuthSpanHandler implements Runnable, Closeable {
         add(Pair.of("ipv4", span.getLocalIp())); // NOTE: this could be IPv6!!
       }
     }
+
+    @Override
+    public boolean add(Pair<String, String> tag) {
+      return (keys == null || keys.contains(tag._1)) && super.add(tag);
+    }
   }
 
   // https://github.com/wavefrontHQ/wavefront-proxy/blob/3dd1fa11711a04de2d9d418e2269f0f9fb464f36/proxy/src/main/java/com/wavefront/agent/listeners/tracing/ZipkinPortUnificationHandler.java#L397-L402
@@ -366,8 +520,10 @@ public final class WavefrontSleuthSpanHandler implements Runnable, Closeable {
   @Override public void run() {
     while (!stop) {
       try {
-        Pair<TraceContext, FinishedSpan> contextAndSpan = spanBuffer.take();
-        send(contextAndSpan._1, contextAndSpan._2);
+        PendingSpan pendingSpan = spanBuffer.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        if (pendingSpan != null) {
+          send(pendingSpan);
+        }
       } catch (InterruptedException ex) {
         if (LOG.isInfoEnabled()) {
           LOG.info("reporting thread interrupted");
@@ -378,14 +534,41 @@ public final class WavefrontSleuthSpanHandler implements Runnable, Closeable {
     }
   }
 
-  @Override public void close() {
+  @Override public synchronized void close() {
+    if (stop) {
+      return;
+    }
     stop = true;
+    heartbeatMetricsScheduledExecutorService.shutdownNow();
+    if (!started) {
+      return;
+    }
     try {
-      // wait for 5 secs max
+      // let the sending thread finish the span it is sending, and wait for 5 secs max
       sendingThread.join(5000);
-      heartbeatMetricsScheduledExecutorService.shutdownNow();
     } catch (InterruptedException ex) {
-      // no-op
+      Thread.currentThread().interrupt();
+    }
+    // flush the spans that are still buffered before the sender is closed
+    PendingSpan pendingSpan;
+    while ((pendingSpan = spanBuffer.poll()) != null) {
+      send(pendingSpan);
+    }
+    wfInternalReporter.stop();
+  }
+
+  /**
+   * A finished span waiting to be sent.
+   */
+  static final class PendingSpan {
+    final TraceContext context;
+    final FinishedSpan span;
+    final boolean sampledAtHead;
+
+    PendingSpan(TraceContext context, FinishedSpan span, boolean sampledAtHead) {
+      this.context = context;
+      this.span = span;
+      this.sampledAtHead = sampledAtHead;
     }
   }
 
@@ -0,0 +1,121 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.util.HashSet;
+import java.util.stream.Stream;
+
+import com.wavefront.opentracing.WavefrontTracer;
+import com.wavefront.opentracing.reporting.CompositeReporter;
+import com.wavefront.opentracing.reporting.Reporter;
+import com.wavefront.opentracing.reporting.WavefrontSpanReporter;
+import com.wavefront.sdk.common.WavefrontSender;
+import com.wavefront.sdk.common.application.ApplicationTags;
+import com.wavefront.spring.autoconfigure.WavefrontProperties.Tracing.Opentracing.Async;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.wavefront.WavefrontConfig;
+import io.opentracing.Tracer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.wavefront.WavefrontMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for OpenTracing, used as a fallback if
+ * Spring Cloud Sleuth is not available.
+ *
+ * @author Stephane Nicoll
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass({ Reporter.class, Tracer.class, WavefrontConfig.class, ApplicationTags.class })
+@ConditionalOnProperty(value = "wavefront.tracing.enabled", matchIfMissing = true)
+@ConditionalOnBean(WavefrontSender.class)
+@ConditionalOnMissingBean(name = WavefrontTracingSleuthAutoConfiguration.BEAN_NAME)
+@EnableConfigurationProperties(WavefrontProperties.class)
+@AutoConfigureAfter({ WavefrontMetricsExportAutoConfiguration.class, WavefrontAutoConfiguration.class,
+    WavefrontTracingSleuthAutoConfiguration.class })
+@Import(DynamicSamplerConfiguration.class)
+public class WavefrontTracingOpenTracingAutoConfiguration {
+
+  @Bean(destroyMethod = "flush")
+  @ConditionalOnMissingBean(Tracer.class)
+  WavefrontTracer wavefrontTracer(ApplicationTags applicationTags,
+      WavefrontProperties wavefrontProperties, ObjectProvider<Reporter> reporters,
+      ObjectProvider<WavefrontTracerBuilderCustomizer> customizers, ObjectProvider<MeterRegistry> meterRegistry,
+      DynamicSampler sampler, ObjectProvider<ApplicationStartup> applicationStartup) {
+    Reporter compositeReporter = createCompositeReporter(reporters.orderedStream(),
+        wavefrontProperties.getTracing().getOpentracing().getAsync(), meterRegistry);
+    WavefrontTracer.Builder builder = new WavefrontTracer.Builder(compositeReporter, applicationTags)
+        .excludeJvmMetrics();  // reported separately
+    builder.redMetricsCustomTagKeys(
+        new HashSet<>(wavefrontProperties.getTracing().getRedMetricsCustomTagKeys()));
+    sampler.getSamplers().forEach(builder::withSampler);
+    customizers.orderedStream().forEach((customizer) -> customizer.customize(builder));
+    StartupStep step = applicationStartup.getIfAvailable(() -> ApplicationStartup.DEFAULT)
+        .start("wavefront.tracing.tracer.start");
+    try {
+      return builder.build();
+    }
+    finally {
+      step.end();
+    }
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  DynamicSampler wavefrontDynamicSampler(Environment environment) {
+    return DynamicSamplerConfiguration.createDynamicSampler(environment, true);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(Reporter.class)
+  Reporter wavefrontSpanReporter(WavefrontSender wavefrontSender, WavefrontConfig wavefrontConfig,
+      ObjectProvider<ApplicationStartup> applicationStartup) {
+    StartupStep step = applicationStartup.getIfAvailable(() -> ApplicationStartup.DEFAULT)
+        .start("wavefront.tracing.span-reporter.start");
+    try {
+      return new WavefrontSpanReporter.Builder().withSource(wavefrontConfig.source())
+          .build(SpanRoutingWavefrontSender.getTracingSender(wavefrontSender));
+    }
+    finally {
+      step.end();
+    }
+  }
+
+  private Reporter createCompositeReporter(Stream<Reporter> reporters, Async async,
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    Reporter[] reporterArray = reporters.toArray(Reporter[]::new);
+    if ((async.getEnabled() != null) ? async.getEnabled() : hasCustomReporter(reporterArray)) {
+      AsyncReporter asyncReporter = new AsyncReporter(async.getMaxQueueSize(), async.getBatchSize(), reporterArray);
+      meterRegistry.ifAvailable(asyncReporter::bindTo);
+      return asyncReporter;
+    }
+    MeterRegistry registry = meterRegistry.getIfAvailable();
+    if (registry != null) {
+      MeteredReporter meteredReporter = new MeteredReporter(reporterArray);
+      meteredReporter.bindTo(registry);
+      return meteredReporter;
+    }
+    return (reporterArray.length > 1) ? new CompositeReporter(reporterArray) : reporterArray[0];
+  }
+
+  private boolean hasCustomReporter(Reporter[] reporters) {
+    for (Reporter reporter : reporters) {
+      if (!(reporter instanceof WavefrontSpanReporter)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
@@ -0,0 +1,225 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.util.Locale;
+
+import brave.Tracer;
+import brave.TracingCustomizer;
+import brave.handler.SpanHandler;
+import brave.http.HttpRequest;
+import brave.http.HttpRequestMatchers;
+import brave.http.HttpRuleSampler;
+import brave.sampler.CountingSampler;
+import brave.sampler.Matcher;
+import brave.sampler.RateLimitingSampler;
+import brave.sampler.Sampler;
+import brave.sampler.SamplerFunction;
+import com.wavefront.sdk.common.WavefrontSender;
+import com.wavefront.sdk.common.application.ApplicationTags;
+import com.wavefront.spring.autoconfigure.WavefrontProperties.Tracing.Sampler.Http.Rule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.wavefront.WavefrontConfig;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.wavefront.WavefrontMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionMessage;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.sleuth.SpanNamer;
+import org.springframework.cloud.sleuth.autoconfig.brave.BraveAutoConfiguration;
+import org.springframework.cloud.sleuth.instrument.web.HttpServerSampler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.core.type.MethodMetadata;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for Wavefront tracing using Spring
+ * Cloud Sleuth.
+ *
+ * @author Adrian Cole
+ * @author Stephane Nicoll
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass({ SpanNamer.class, MeterRegistry.class, WavefrontConfig.class, WavefrontSender.class,
+    ApplicationTags.class })
+@ConditionalOnProperty(value = "wavefront.tracing.enabled", matchIfMissing = true)
+@EnableConfigurationProperties(WavefrontProperties.class)
+@AutoConfigureAfter({ WavefrontMetricsExportAutoConfiguration.class, WavefrontAutoConfiguration.class })
+@AutoConfigureBefore(BraveAutoConfiguration.class)
+@Import(DynamicSamplerConfiguration.class)
+public class WavefrontTracingSleuthAutoConfiguration {
+
+  static final String BEAN_NAME = "wavefrontTracingCustomizer";
+
+  @Bean
+  @ConditionalOnBean({ MeterRegistry.class, WavefrontConfig.class, WavefrontSender.class })
+  WavefrontSleuthSpanHandler wavefrontSleuthSpanHandler(MeterRegistry meterRegistry,
+          WavefrontSender wavefrontSender,
+          ApplicationTags applicationTags,
+          WavefrontConfig wavefrontConfig,
+          WavefrontProperties wavefrontProperties,
+          DynamicSampler sampler,
+          ObjectProvider<ApplicationStartup> applicationStartup) {
+    return new WavefrontSleuthSpanHandler(
+            // https://github.com/wavefrontHQ/wavefront-opentracing-sdk-java/blob/f1f08d8daf7b692b9b61dcd5bc24ca6befa8e710/src/main/java/com/wavefront/opentracing/reporting/WavefrontSpanReporter.java#L54
+            50000, // TODO: maxQueueSize should be a property, ya?
+            SpanRoutingWavefrontSender.getTracingSender(wavefrontSender),
+            meterRegistry,
+            wavefrontConfig.source(),
+            applicationTags,
+            wavefrontProperties,
+            applicationStartup.getIfAvailable(() -> ApplicationStartup.DEFAULT),
+            sampler);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnBean(WavefrontSender.class)
+  DynamicSampler wavefrontDynamicSampler(Environment environment) {
+    return DynamicSamplerConfiguration.createDynamicSampler(environment, false);
+  }
+
+  @Configuration(proxyBeanMethods = false)
+  @ConditionalOnClass({Tracer.class, TracingCustomizer.class, SpanHandler.class })
+  static class BraveCustomizerConfiguration {
+    @Bean(BEAN_NAME)
+    @ConditionalOnMissingBean(name = BEAN_NAME)
+    @ConditionalOnBean({ MeterRegistry.class, WavefrontConfig.class, WavefrontSender.class })
+    TracingCustomizer wavefrontTracingCustomizer(WavefrontSleuthSpanHandler spanHandler,
+        WavefrontProperties wavefrontProperties, ObjectProvider<Sampler> sampler,
+        ConfigurableListableBeanFactory beanFactory) {
+      // traces are sampled when they start if a sampler applies the Wavefront settings
+      boolean sampledAtHead = sampler.getIfUnique() instanceof WavefrontBraveSampler
+          || isWavefrontHttpSampler(beanFactory);
+      boolean recordUnsampled = sampledAtHead && wavefrontProperties.getTracing().getSampler().isRecordUnsampled();
+      return t -> {
+        t.traceId128Bit(true).supportsJoin(false)
+            .addSpanHandler(new WavefrontSleuthBraveSpanHandler(spanHandler, sampledAtHead));
+        if (recordUnsampled) {
+          t.alwaysSampleLocal();
+        }
+      };
+    }
+
+    private static boolean isWavefrontHttpSampler(ConfigurableListableBeanFactory beanFactory) {
+      if (!beanFactory.containsBeanDefinition(HttpServerSampler.NAME)) {
+        return false;
+      }
+      BeanDefinition definition = beanFactory.getBeanDefinition(HttpServerSampler.NAME);
+      if (definition instanceof AnnotatedBeanDefinition) {
+        MethodMetadata factoryMethod = ((AnnotatedBeanDefinition) definition).getFactoryMethodMetadata();
+        return factoryMethod != null
+            && HttpSamplerConfiguration.class.getName().equals(factoryMethod.getDeclaringClassName());
+      }
+      return false;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(Sampler.class)
+    @ConditionalOnBean({ MeterRegistry.class, WavefrontConfig.class, WavefrontSender.class })
+    @Conditional(OnSamplerSettingsCondition.class)
+    WavefrontBraveSampler wavefrontBraveSampler(DynamicSampler sampler, WavefrontProperties wavefrontProperties) {
+      return new WavefrontBraveSampler(sampler, wavefrontProperties.getTracing().getSampler().getRate());
+    }
+  }
+
+  @Configuration(proxyBeanMethods = false)
+  @ConditionalOnClass({ HttpRuleSampler.class, HttpServerSampler.class })
+  @Conditional(OnHttpSamplingRulesCondition.class)
+  static class HttpSamplerConfiguration {
+    @Bean(HttpServerSampler.NAME)
+    @ConditionalOnMissingBean(name = HttpServerSampler.NAME)
+    SamplerFunction<HttpRequest> wavefrontHttpServerSampler(WavefrontProperties wavefrontProperties) {
+      HttpRuleSampler.Builder builder = HttpRuleSampler.newBuilder();
+      for (Rule rule : wavefrontProperties.getTracing().getSampler().getHttp().getRules()) {
+        builder.putRule(getMatcher(rule), getSampler(rule));
+      }
+      return builder.build();
+    }
+
+    private static Matcher<HttpRequest> getMatcher(Rule rule) {
+      Matcher<HttpRequest> pathMatcher = HttpRequestMatchers.pathStartsWith(rule.getPathPrefix());
+      if (rule.getMethod() != null) {
+        // composed directly, as Matchers.and takes generic varargs
+        Matcher<HttpRequest> methodMatcher = HttpRequestMatchers
+            .methodEquals(rule.getMethod().toUpperCase(Locale.ROOT));
+        return (request) -> methodMatcher.matches(request) && pathMatcher.matches(request);
+      }
+      return pathMatcher;
+    }
+
+    private static Sampler getSampler(Rule rule) {
+      if (rule.getRate() != null) {
+        return RateLimitingSampler.create(rule.getRate());
+      }
+      return CountingSampler.create((rule.getProbability() != null) ? rule.getProbability().floatValue() : 1.0f);
+    }
+  }
+
+  /**
+   * Condition that matches when any general sampling setting is configured.
+   */
+  static class OnSamplerSettingsCondition extends AnyNestedCondition {
+
+    OnSamplerSettingsCondition() {
+      super(ConfigurationPhase.REGISTER_BEAN);
+    }
+
+    @ConditionalOnProperty("wavefront.tracing.sampler.probability")
+    static class Probability {
+    }
+
+    @ConditionalOnProperty("wavefront.tracing.sampler.duration")
+    static class Duration {
+    }
+
+    @ConditionalOnProperty("wavefront.tracing.sampler.rate")
+    static class Rate {
+    }
+
+    @ConditionalOnProperty("wavefront.tracing.sampler.latency.quantile")
+    static class Latency {
+    }
+
+    @ConditionalOnProperty(name = "wavefront.tracing.sampler.errors", havingValue = "true")
+    static class Errors {
+    }
+
+  }
+
+  /**
+   * Condition that matches when sampling rules of HTTP requests are configured.
+   */
+  static class OnHttpSamplingRulesCondition extends SpringBootCondition {
+
+    @Override
+    public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+      ConditionMessage.Builder message = ConditionMessage.forCondition("Wavefront HTTP sampling rules");
+      boolean hasRules = Binder.get(context.getEnvironment())
+          .bind("wavefront.tracing.sampler.http.rules", Bindable.listOf(Rule.class))
+          .map((rules) -> !rules.isEmpty()).orElse(false);
+      return hasRules ? ConditionOutcome.match(message.found("rules").atAll())
+          : ConditionOutcome.noMatch(message.didNotFind("rules").atAll());
+    }
+
+  }
+}
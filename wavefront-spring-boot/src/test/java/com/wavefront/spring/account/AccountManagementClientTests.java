@@ -1,5 +1,14 @@
 package com.wavefront.spring.account;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.sun.net.httpserver.HttpServer;
 import com.wavefront.sdk.common.application.ApplicationTags;
 import com.wavefront.spring.autoconfigure.ApplicationTagsFactory;
 import org.junit.jupiter.api.Test;
@@ -131,6 +140,34 @@ class AccountManagementClientTests {
     assertThat(accountInfo.getLoginUrl()).isEqualTo("https://example.com/us/test123");
   }
 
+  @Test
+  void connectionIsReusedAcrossCalls() throws IOException {
+    Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", (exchange) -> {
+      clientPorts.add(exchange.getRemoteAddress().getPort());
+      byte[] body = "{\"url\":\"/us/test123\"}".getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.start();
+    try {
+      AccountManagementClient client = new AccountManagementClient(new RestTemplateBuilder(), "1.0.0");
+      String clusterUri = "http://localhost:" + server.getAddress().getPort();
+      for (int i = 0; i < 3; i++) {
+        AccountInfo accountInfo = client.getExistingAccount(clusterUri, createDefaultApplicationTags(), "abc-def");
+        assertThat(accountInfo.getLoginUrl()).isEqualTo(clusterUri + "/us/test123");
+      }
+      assertThat(clientPorts).hasSize(1);
+    }
+    finally {
+      server.stop(0);
+    }
+  }
+
   private ApplicationTags createDefaultApplicationTags() {
     return new ApplicationTagsFactory().createFromEnvironment(new MockEnvironment());
   }
@@ -0,0 +1,73 @@
+package com.wavefront.spring.actuate;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.wavefront.spring.account.AccountManagementFailedException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link CoalescingDashboardUrlSupplier}.
+ */
+class CoalescingDashboardUrlSupplierTests {
+
+  private final AtomicInteger lookups = new AtomicInteger();
+
+  private final Supplier<URI> delegate = () -> URI.create("https://example.com/" + this.lookups.incrementAndGet());
+
+  @Test
+  void concurrentCallersShareInFlightLookup() throws Exception {
+    CountDownLatch lookupStarted = new CountDownLatch(1);
+    CountDownLatch lookupReleased = new CountDownLatch(1);
+    CoalescingDashboardUrlSupplier supplier = new CoalescingDashboardUrlSupplier(() -> {
+      lookupStarted.countDown();
+      await(lookupReleased);
+      return this.delegate.get();
+    });
+    CompletableFuture<URI> first = CompletableFuture.supplyAsync(supplier);
+    assertThat(lookupStarted.await(5, TimeUnit.SECONDS)).isTrue();
+    CompletableFuture<URI> second = CompletableFuture.supplyAsync(supplier);
+    Thread.sleep(50);
+    lookupReleased.countDown();
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(URI.create("https://example.com/1"));
+    assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(URI.create("https://example.com/1"));
+    assertThat(this.lookups).hasValue(1);
+  }
+
+  @Test
+  void resolvedDashboardUrlIsNotReused() {
+    CoalescingDashboardUrlSupplier supplier = new CoalescingDashboardUrlSupplier(this.delegate);
+    assertThat(supplier.get()).isEqualTo(URI.create("https://example.com/1"));
+    assertThat(supplier.get()).isEqualTo(URI.create("https://example.com/2"));
+  }
+
+  @Test
+  void failedLookupIsNotReused() {
+    AtomicInteger attempts = new AtomicInteger();
+    CoalescingDashboardUrlSupplier supplier = new CoalescingDashboardUrlSupplier(() -> {
+      if (attempts.incrementAndGet() == 1) {
+        throw new AccountManagementFailedException("test");
+      }
+      return this.delegate.get();
+    });
+    assertThatThrownBy(supplier::get).isInstanceOf(AccountManagementFailedException.class);
+    assertThat(supplier.get()).isEqualTo(URI.create("https://example.com/1"));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
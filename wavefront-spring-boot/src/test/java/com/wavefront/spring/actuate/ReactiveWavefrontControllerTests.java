@@ -0,0 +1,31 @@
+package com.wavefront.spring.actuate;
+
+import java.net.URI;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ReactiveWavefrontController}.
+ */
+class ReactiveWavefrontControllerTests {
+
+  @Test
+  void dashboardInvokeSupplierOffCallingThread() {
+    URI location = URI.create("https://example.com");
+    Thread caller = Thread.currentThread();
+    ReactiveWavefrontController controller = new ReactiveWavefrontController(() -> {
+      assertThat(Thread.currentThread()).isNotSameAs(caller);
+      return location;
+    });
+    ResponseEntity<Void> response = controller.dashboard().block(Duration.ofSeconds(5));
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FOUND);
+    assertThat(response.getHeaders().getLocation()).isEqualTo(location);
+  }
+
+}
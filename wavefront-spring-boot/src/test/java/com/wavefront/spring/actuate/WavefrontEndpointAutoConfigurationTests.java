@@ -1,6 +1,7 @@
 package com.wavefront.spring.actuate;
 
 import java.net.URI;
+import java.time.Duration;
 
 import com.wavefront.sdk.common.application.ApplicationTags;
 import com.wavefront.spring.account.AccountInfo;
@@ -14,12 +15,16 @@ import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.autoconfigure.web.client.RestTemplateAutoConfiguration;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 /**
  * Tests for {@link WavefrontEndpointAutoConfiguration}.
@@ -93,6 +98,37 @@ class WavefrontEndpointAutoConfigurationTests {
         });
   }
 
+  @Test
+  void runWithFreemiumAccountRetrievesNewDashboardUrlEachTime() {
+    this.contextRunner.withUserConfiguration(AccountManagementConfiguration.class)
+        .withPropertyValues("wavefront.freemium-account=true",
+            "management.endpoints.web.exposure.include=wavefront")
+        .run((context) -> {
+          WavefrontController controller = context.getBean(WavefrontController.class);
+          controller.dashboard();
+          controller.dashboard();
+          verify(context.getBean(AccountManagementClient.class), times(2))
+              .getExistingAccount(any(), any(), any());
+        });
+  }
+
+  @Test
+  void runWithReactiveWebApplicationHasReactiveEndpointBean() {
+    new ReactiveWebApplicationContextRunner()
+        .withConfiguration(AutoConfigurations.of(RestTemplateAutoConfiguration.class,
+            WavefrontEndpointAutoConfiguration.class))
+        .withUserConfiguration(AccountManagementConfiguration.class)
+        .withPropertyValues("wavefront.freemium-account=true",
+            "management.endpoints.web.exposure.include=wavefront")
+        .run((context) -> {
+          assertThat(context).hasSingleBean(ReactiveWavefrontController.class)
+              .doesNotHaveBean(WavefrontController.class);
+          assertThat(context.getBean(ReactiveWavefrontController.class).dashboard()
+              .block(Duration.ofSeconds(5)).getHeaders().getLocation())
+              .isEqualTo(URI.create("https://example.com/go"));
+        });
+  }
+
   @Configuration(proxyBeanMethods = false)
   @EnableConfigurationProperties(WavefrontProperties.class)
   static class AccountManagementConfiguration {
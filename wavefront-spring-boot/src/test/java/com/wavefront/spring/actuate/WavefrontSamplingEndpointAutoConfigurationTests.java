@@ -0,0 +1,39 @@
+package com.wavefront.spring.actuate;
+
+import com.wavefront.spring.autoconfigure.DynamicSampler;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link WavefrontSamplingEndpointAutoConfiguration}.
+ */
+class WavefrontSamplingEndpointAutoConfigurationTests {
+
+  private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+      .withConfiguration(AutoConfigurations.of(WavefrontSamplingEndpointAutoConfiguration.class));
+
+  @Test
+  void runShouldHaveEndpointBean() {
+    this.contextRunner.withBean(DynamicSampler.class, () -> mock(DynamicSampler.class))
+        .withPropertyValues("management.endpoints.web.exposure.include=wavefrontsampling")
+        .run((context) -> assertThat(context).hasSingleBean(WavefrontSamplingEndpoint.class));
+  }
+
+  @Test
+  void runWithoutDynamicSamplerShouldNotHaveEndpointBean() {
+    this.contextRunner.withPropertyValues("management.endpoints.web.exposure.include=wavefrontsampling")
+        .run((context) -> assertThat(context).doesNotHaveBean(WavefrontSamplingEndpoint.class));
+  }
+
+  @Test
+  void runWhenNotExposedShouldNotHaveEndpointBean() {
+    this.contextRunner.withBean(DynamicSampler.class, () -> mock(DynamicSampler.class))
+        .run((context) -> assertThat(context).doesNotHaveBean(WavefrontSamplingEndpoint.class));
+  }
+
+}
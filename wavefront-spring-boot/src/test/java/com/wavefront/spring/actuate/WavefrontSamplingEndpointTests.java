@@ -0,0 +1,74 @@
+package com.wavefront.spring.actuate;
+
+import java.time.Duration;
+
+import com.wavefront.spring.autoconfigure.DynamicSampler;
+import com.wavefront.spring.autoconfigure.DynamicSampler.Settings;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link WavefrontSamplingEndpoint}.
+ */
+class WavefrontSamplingEndpointTests {
+
+  private final DynamicSampler sampler = mock(DynamicSampler.class);
+
+  private final WavefrontSamplingEndpoint endpoint = new WavefrontSamplingEndpoint(this.sampler);
+
+  @Test
+  void samplingReturnsCurrentSettings() {
+    Settings settings = Settings.of(0.1, null);
+    given(this.sampler.getSettings()).willReturn(settings);
+    assertThat(this.endpoint.sampling()).isSameAs(settings);
+  }
+
+  @Test
+  void updateAppliesSettings() {
+    given(this.sampler.getSettings()).willReturn(Settings.of(null, null));
+    Settings settings = this.endpoint.update(0.5, Duration.ofSeconds(2));
+    assertThat(settings).isEqualTo(Settings.of(0.5, Duration.ofSeconds(2)));
+    verify(this.sampler).update(settings);
+  }
+
+  @Test
+  void updateKeepsSettingsThatAreNotSpecified() {
+    given(this.sampler.getSettings()).willReturn(Settings.of(0.1, Duration.ofSeconds(1)));
+    Settings settings = this.endpoint.update(null, Duration.ofSeconds(2));
+    assertThat(settings).isEqualTo(Settings.of(0.1, Duration.ofSeconds(2)));
+    verify(this.sampler).update(settings);
+  }
+
+  @Test
+  void updateWithoutSettingsIsRejected() {
+    assertThatExceptionOfType(InvalidEndpointRequestException.class)
+        .isThrownBy(() -> this.endpoint.update(null, null)).withMessageContaining("No sampling setting");
+    verify(this.sampler, never()).update(any());
+  }
+
+  @Test
+  void updateWithInvalidProbabilityIsRejected() {
+    given(this.sampler.getSettings()).willReturn(Settings.of(null, null));
+    assertThatExceptionOfType(InvalidEndpointRequestException.class)
+        .isThrownBy(() -> this.endpoint.update(2.0, null)).withMessageContaining("between 0.0 and 1.0");
+    verify(this.sampler, never()).update(any());
+  }
+
+  @Test
+  void resetAppliesConfiguredSettings() {
+    Settings settings = Settings.of(null, Duration.ofSeconds(1));
+    given(this.sampler.getSettings()).willReturn(settings);
+    assertThat(this.endpoint.reset()).isSameAs(settings);
+    verify(this.sampler).reset();
+  }
+
+}
@@ -0,0 +1,60 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link AccountManagementEnablementDeducer}.
+ */
+class AccountManagementEnablementDeducerTests {
+
+  @Test
+  void shouldNotEnableWhenRunningATest() {
+    assertThat(AccountManagementEnablementDeducer.shouldEnable(Thread.currentThread())).isFalse();
+  }
+
+  @Test
+  void shouldEnableOnAnotherThreadOnceATestHasBeenDetected() {
+    assertThat(AccountManagementEnablementDeducer.shouldEnable(Thread.currentThread())).isFalse();
+    assertThat(CompletableFuture.supplyAsync(() -> AccountManagementEnablementDeducer
+        .shouldEnable(Thread.currentThread()), (task) -> new Thread(task).start()).join()).isTrue();
+  }
+
+  @Test
+  void skippedStackElementIsDetectedOnCurrentThread() {
+    assertThat(AccountManagementEnablementDeducer.hasSkippedStackElement(Thread.currentThread())).isTrue();
+  }
+
+  @Test
+  void skippedStackElementIsNotDetectedOnCurrentThreadWithoutTestFrames() {
+    assertThat(CompletableFuture.supplyAsync(() -> AccountManagementEnablementDeducer
+        .hasSkippedStackElement(Thread.currentThread()), (task) -> new Thread(task).start()).join()).isFalse();
+  }
+
+  @Test
+  void skippedStackElementIsNotDetectedOnAnotherThreadWithoutTestFrames() throws InterruptedException {
+    Object monitor = new Object();
+    Thread thread = new Thread(() -> {
+      synchronized (monitor) {
+        try {
+          monitor.wait();
+        }
+        catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    thread.start();
+    try {
+      assertThat(AccountManagementEnablementDeducer.hasSkippedStackElement(thread)).isFalse();
+    }
+    finally {
+      thread.interrupt();
+      thread.join();
+    }
+  }
+
+}
@@ -5,6 +5,9 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import com.wavefront.sdk.common.application.ApplicationTags;
@@ -16,16 +19,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
 
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationPreparedEvent;
 import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.boot.test.system.CapturedOutput;
 import org.springframework.boot.test.system.OutputCaptureExtension;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
 import org.springframework.core.env.MapPropertySource;
 import org.springframework.core.io.PathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.mock.env.MockEnvironment;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -48,6 +55,8 @@ class AccountManagementEnvironmentPostProcessorTests {
 
   private static final String FREEMIUM_ACCOUNT_PROPERTY = "wavefront.freemium-account";
 
+  private static final String ASYNC_ACCOUNT_PROVISIONING_PROPERTY = "wavefront.async-account-provisioning";
+
   private final SpringApplication application = mock(SpringApplication.class);
 
   @Test
@@ -150,6 +159,18 @@ class AccountManagementEnvironmentPostProcessorTests {
         + "https://wavefront.surf/us/test1\n");
   }
 
+  @Test
+  void existingAccountLookupIsRecordedAsStartupStep() throws IOException {
+    Resource apiTokenResource = mockApiTokenResource("abc-def");
+    BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(10);
+    given(this.application.getApplicationStartup()).willReturn(applicationStartup);
+    TestAccountManagementEnvironmentPostProcessor postProcessor = TestAccountManagementEnvironmentPostProcessor
+        .forExistingAccount(apiTokenResource, () -> new AccountInfo("abc-def", "https://wavefront.surf/us/test1"));
+    postProcessor.postProcessEnvironment(new MockEnvironment(), this.application);
+    assertThat(applicationStartup.getBufferedTimeline().getEvents()).singleElement()
+        .satisfies((event) -> assertThat(event.getStartupStep().getName()).isEqualTo("wavefront.account.lookup"));
+  }
+
   @Test
   void existingAccountIsConfiguredWhenApiTokenFileExistWithNewLines() throws IOException {
     Resource apiTokenResource = mockApiTokenResource("\nabc-def\n");
@@ -220,6 +241,65 @@ class AccountManagementEnvironmentPostProcessorTests {
             + "\n" + "test message\n");
   }
 
+  @Test
+  void asyncAccountProvisioningDoesNotBlock(@TempDir Path directory, CapturedOutput output) throws Exception {
+    Path apiTokenFile = directory.resolve("test.token");
+    CountDownLatch provisioning = new CountDownLatch(1);
+    MockEnvironment environment = new MockEnvironment().withProperty(ASYNC_ACCOUNT_PROVISIONING_PROPERTY, "true");
+    TestAccountManagementEnvironmentPostProcessor postProcessor = TestAccountManagementEnvironmentPostProcessor
+        .forNewAccount(new PathResource(apiTokenFile), () -> {
+          awaitQuietly(provisioning);
+          return new AccountInfo("abc-def", "https://wavefront.surf/us/test");
+        });
+    postProcessor.postProcessEnvironment(environment, this.application);
+    assertThat(environment.getProperty(API_TOKEN_PROPERTY)).isNull();
+    assertThat(environment.getProperty(URI_PROPERTY)).isEqualTo("https://wavefront.surf");
+    assertThat(environment.getProperty(FREEMIUM_ACCOUNT_PROPERTY)).isEqualTo("true");
+    postProcessor.onApplicationEvent(mockApplicationStartedEvent());
+    assertThat(output).doesNotContain("A Wavefront account has been provisioned successfully");
+    provisioning.countDown();
+    DeferredApiTokenPropertySource propertySource = (DeferredApiTokenPropertySource) environment
+        .getPropertySources().get("wavefront");
+    assertThat(propertySource.getApiToken().get(5, TimeUnit.SECONDS)).isEqualTo("abc-def");
+    assertThat(environment.getProperty(API_TOKEN_PROPERTY)).isEqualTo("abc-def");
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!output.toString().contains("A Wavefront account has been provisioned successfully")
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(output).contains("A Wavefront account has been provisioned successfully");
+    assertThat(apiTokenFile).hasContent("abc-def");
+  }
+
+  @Test
+  void asyncAccountProvisioningFailureCompletesApiTokenExceptionally() {
+    Resource apiTokenResource = mock(Resource.class);
+    given(apiTokenResource.isReadable()).willReturn(false);
+    MockEnvironment environment = new MockEnvironment().withProperty(ASYNC_ACCOUNT_PROVISIONING_PROPERTY, "true");
+    TestAccountManagementEnvironmentPostProcessor.forNewAccount(apiTokenResource, () -> {
+      throw new AccountManagementFailedException("test message");
+    }).postProcessEnvironment(environment, this.application);
+    DeferredApiTokenPropertySource propertySource = (DeferredApiTokenPropertySource) environment
+        .getPropertySources().get("wavefront");
+    assertThatExceptionOfType(ExecutionException.class)
+        .isThrownBy(() -> propertySource.getApiToken().get(5, TimeUnit.SECONDS));
+    assertThat(environment.getProperty(API_TOKEN_PROPERTY)).isNull();
+  }
+
+  @Test
+  void asyncAccountProvisioningWithExistingApiTokenRegistersItImmediately() throws IOException {
+    Resource apiTokenResource = mockApiTokenResource("abc-def");
+    CountDownLatch lookup = new CountDownLatch(1);
+    MockEnvironment environment = new MockEnvironment().withProperty(ASYNC_ACCOUNT_PROVISIONING_PROPERTY, "true");
+    TestAccountManagementEnvironmentPostProcessor.forExistingAccount(apiTokenResource, () -> {
+      awaitQuietly(lookup);
+      return new AccountInfo("abc-def", "https://wavefront.surf/us/test1");
+    }).postProcessEnvironment(environment, this.application);
+    assertThat(environment.getProperty(API_TOKEN_PROPERTY)).isEqualTo("abc-def");
+    assertThat(environment.getProperty(FREEMIUM_ACCOUNT_PROPERTY)).isEqualTo("true");
+    lookup.countDown();
+  }
+
   @Test
   void accountProvisioningDoesNotFailWhenReadingApiTokenFileFails() throws IOException {
     Resource apiTokenResource = mock(Resource.class);
@@ -290,6 +370,26 @@ class AccountManagementEnvironmentPostProcessorTests {
     verify(client).getExistingAccount(clusterUri, applicationTags, apiToken);
   }
 
+  @Test
+  void accountManagementClientIsSharedWithTheApplicationContextOfAFreemiumAccount() {
+    MockEnvironment environment = new MockEnvironment().withProperty(FREEMIUM_ACCOUNT_PROPERTY, "true");
+    GenericApplicationContext context = new GenericApplicationContext();
+    context.setEnvironment(environment);
+    new AccountManagementEnvironmentPostProcessor()
+        .onApplicationEvent(new ApplicationPreparedEvent(this.application, new String[0], context));
+    assertThat(context.getBeanFactory().getBean("accountManagementClient"))
+        .isInstanceOf(AccountManagementClient.class);
+  }
+
+  @Test
+  void accountManagementClientIsNotSharedWithTheApplicationContextOfARegularAccount() {
+    GenericApplicationContext context = new GenericApplicationContext();
+    context.setEnvironment(new MockEnvironment());
+    new AccountManagementEnvironmentPostProcessor()
+        .onApplicationEvent(new ApplicationPreparedEvent(this.application, new String[0], context));
+    assertThat(context.getBeanFactory().containsBean("accountManagementClient")).isFalse();
+  }
+
   @Test
   void environmentPostProcessorIgnoresBootstrapPhase() throws IOException {
     Resource apiTokenResource = mockApiTokenResource("abc-def");
@@ -305,6 +405,15 @@ class AccountManagementEnvironmentPostProcessorTests {
     assertThat(environment.containsProperty(URI_PROPERTY)).isFalse();
   }
 
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   private Resource mockApiTokenResource(String apiToken) throws IOException {
     Resource apiTokenResource = mock(Resource.class);
     given(apiTokenResource.isReadable()).willReturn(true);
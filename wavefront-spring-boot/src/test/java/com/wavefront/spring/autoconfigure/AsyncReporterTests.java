@@ -0,0 +1,215 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.wavefront.opentracing.WavefrontSpan;
+import com.wavefront.opentracing.reporting.Reporter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link AsyncReporter}.
+ */
+class AsyncReporterTests {
+
+  private final Reporter first = mock(Reporter.class);
+
+  private final Reporter second = mock(Reporter.class);
+
+  @Test
+  void reportersAreExposed() {
+    AsyncReporter reporter = new AsyncReporter(10, 5, this.first, this.second);
+    assertThat(reporter.getReporters()).containsExactly(this.first, this.second);
+  }
+
+  @Test
+  void spanIsReportedInTheBackground() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    willAnswer((invocation) -> release.await(5, TimeUnit.SECONDS)).given(this.first).report(any());
+    AsyncReporter reporter = new AsyncReporter(10, 5, this.first, this.second);
+    try {
+      WavefrontSpan span = mock(WavefrontSpan.class);
+      reporter.report(span);
+      release.countDown();
+      verify(this.first, timeout(5000)).report(span);
+      verify(this.second, timeout(5000)).report(span);
+    }
+    finally {
+      reporter.close();
+    }
+  }
+
+  @Test
+  void spanIsDroppedWhenQueueIsFull() throws Exception {
+    CountDownLatch reporting = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    willAnswer((invocation) -> {
+      reporting.countDown();
+      return release.await(5, TimeUnit.SECONDS);
+    }).given(this.first).report(any());
+    AsyncReporter reporter = new AsyncReporter(1, 5, this.first);
+    MeterRegistry registry = new SimpleMeterRegistry();
+    reporter.bindTo(registry);
+    try {
+      reporter.report(mock(WavefrontSpan.class));
+      assertThat(reporting.await(5, TimeUnit.SECONDS)).isTrue();
+      reporter.report(mock(WavefrontSpan.class));
+      reporter.report(mock(WavefrontSpan.class));
+      assertThat(registry.get("reporter.spans.received").functionCounter().count()).isEqualTo(3);
+      assertThat(registry.get("reporter.spans.dropped").functionCounter().count()).isEqualTo(1);
+      assertThat(registry.get("reporter.queue.size").gauge().value()).isEqualTo(1);
+      assertThat(registry.get("reporter.queue.remaining_capacity").gauge().value()).isEqualTo(0);
+    }
+    finally {
+      release.countDown();
+      reporter.close();
+    }
+  }
+
+  @Test
+  void slowReporterDoesNotHoldBackOtherReporters() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    willAnswer((invocation) -> release.await(5, TimeUnit.SECONDS)).given(this.first).report(any());
+    AsyncReporter reporter = new AsyncReporter(10, 5, this.first, this.second);
+    try {
+      WavefrontSpan firstSpan = mock(WavefrontSpan.class);
+      WavefrontSpan secondSpan = mock(WavefrontSpan.class);
+      reporter.report(firstSpan);
+      reporter.report(secondSpan);
+      verify(this.second, timeout(5000)).report(firstSpan);
+      verify(this.second, timeout(5000)).report(secondSpan);
+      assertThat(release.getCount()).isEqualTo(1);
+    }
+    finally {
+      release.countDown();
+      reporter.close();
+    }
+  }
+
+  @Test
+  void spanIsDroppedOnlyFromTheLaneOfAReporterWhoseQueueIsFull() throws Exception {
+    CountDownLatch reporting = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    willAnswer((invocation) -> {
+      reporting.countDown();
+      return release.await(5, TimeUnit.SECONDS);
+    }).given(this.first).report(any());
+    AsyncReporter reporter = new AsyncReporter(1, 5, this.first, this.second);
+    MeterRegistry registry = new SimpleMeterRegistry();
+    reporter.bindTo(registry);
+    String firstLane = this.first.getClass().getSimpleName();
+    String secondLane = firstLane + "-2";
+    try {
+      reporter.report(mock(WavefrontSpan.class));
+      assertThat(reporting.await(5, TimeUnit.SECONDS)).isTrue();
+      verify(this.second, timeout(5000)).report(any());
+      reporter.report(mock(WavefrontSpan.class));
+      verify(this.second, timeout(5000).times(2)).report(any());
+      reporter.report(mock(WavefrontSpan.class));
+      verify(this.second, timeout(5000).times(3)).report(any());
+      assertThat(registry.get("reporter.queue.size").gauges()).hasSize(2);
+      assertThat(registry.get("reporter.spans.dropped").tag("reporter", firstLane).functionCounter().count())
+          .isEqualTo(1);
+      assertThat(registry.get("reporter.spans.dropped").tag("reporter", secondLane).functionCounter().count())
+          .isEqualTo(0);
+      assertThat(registry.get("reporter.spans.reported").tag("reporter", secondLane).functionCounter().count())
+          .isEqualTo(3);
+    }
+    finally {
+      release.countDown();
+      reporter.close();
+    }
+  }
+
+  @Test
+  void failingReporterDoesNotPreventOtherReporters() throws IOException {
+    willThrow(new IOException("test")).given(this.first).report(any());
+    AsyncReporter reporter = new AsyncReporter(10, 5, this.first, this.second);
+    MeterRegistry registry = new SimpleMeterRegistry();
+    reporter.bindTo(registry);
+    WavefrontSpan span = mock(WavefrontSpan.class);
+    reporter.report(span);
+    reporter.close();
+    verify(this.second).report(span);
+    String firstLane = this.first.getClass().getSimpleName();
+    assertThat(registry.get("reporter.errors").tag("reporter", firstLane).functionCounter().count()).isEqualTo(1);
+    assertThat(registry.get("reporter.errors").tag("reporter", firstLane + "-2").functionCounter().count())
+        .isEqualTo(0);
+  }
+
+  @Test
+  void flushReportsQueuedSpansBeforeFlushingReporters() throws IOException {
+    AsyncReporter reporter = new AsyncReporter(10, 5, this.first);
+    try {
+      WavefrontSpan span = mock(WavefrontSpan.class);
+      reporter.report(span);
+      reporter.flush();
+      verify(this.first, timeout(5000)).report(span);
+      verify(this.first).flush();
+    }
+    finally {
+      reporter.close();
+    }
+  }
+
+  @Test
+  void closeReportsQueuedSpansBeforeClosingReporters() throws IOException {
+    AsyncReporter reporter = new AsyncReporter(10, 5, this.first);
+    WavefrontSpan span = mock(WavefrontSpan.class);
+    reporter.report(span);
+    reporter.close();
+    InOrder ordered = inOrder(this.first);
+    ordered.verify(this.first).report(span);
+    ordered.verify(this.first).close();
+  }
+
+  @Test
+  void closeLetsTheBatchBeingReportedComplete() throws Exception {
+    CountDownLatch reporting = new CountDownLatch(1);
+    AtomicBoolean interrupted = new AtomicBoolean();
+    willAnswer((invocation) -> {
+      reporting.countDown();
+      try {
+        Thread.sleep(200);
+      }
+      catch (InterruptedException ex) {
+        interrupted.set(true);
+      }
+      return null;
+    }).given(this.first).report(any());
+    AsyncReporter reporter = new AsyncReporter(10, 5, this.first);
+    WavefrontSpan span = mock(WavefrontSpan.class);
+    reporter.report(span);
+    assertThat(reporting.await(5, TimeUnit.SECONDS)).isTrue();
+    reporter.close();
+    assertThat(interrupted).isFalse();
+    InOrder ordered = inOrder(this.first);
+    ordered.verify(this.first).report(span);
+    ordered.verify(this.first).close();
+  }
+
+  @Test
+  void spanReportedAfterCloseIsDropped() throws IOException {
+    AsyncReporter reporter = new AsyncReporter(10, 5, this.first);
+    MeterRegistry registry = new SimpleMeterRegistry();
+    reporter.bindTo(registry);
+    reporter.close();
+    reporter.report(mock(WavefrontSpan.class));
+    assertThat(registry.get("reporter.spans.dropped").functionCounter().count()).isEqualTo(1);
+  }
+
+}
@@ -0,0 +1,111 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.util.Collections;
+
+import com.wavefront.spring.autoconfigure.WavefrontProperties.Metrics.CardinalityLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link CardinalityLimitingMeterFilter}.
+ */
+class CardinalityLimitingMeterFilterTests {
+
+  @Test
+  void seriesWithinLimitsAreRegistered() {
+    CardinalityLimitingMeterFilter filter = createFilter(10, 2, CardinalityLimit.Mode.DENY);
+    MeterRegistry registry = createRegistry(filter);
+    registry.counter("http.requests", "uri", "/a").increment();
+    registry.counter("http.requests", "uri", "/b").increment();
+    assertThat(registry.find("http.requests").counters()).hasSize(2);
+    assertThat(filter.getSeriesCount()).isEqualTo(2);
+    assertThat(filter.getRejectedCount()).isZero();
+  }
+
+  @Test
+  void admittedSeriesAreAlwaysAccepted() {
+    CardinalityLimitingMeterFilter filter = createFilter(10, 1, CardinalityLimit.Mode.DENY);
+    MeterRegistry registry = createRegistry(filter);
+    registry.counter("http.requests", "uri", "/a").increment();
+    registry.counter("http.requests", "uri", "/a").increment();
+    assertThat(registry.get("http.requests").tag("uri", "/a").counter().count()).isEqualTo(2);
+    assertThat(filter.getRejectedCount()).isZero();
+  }
+
+  @Test
+  void seriesExceedingPerMeterLimitAreDenied() {
+    CardinalityLimitingMeterFilter filter = createFilter(10, 2, CardinalityLimit.Mode.DENY);
+    MeterRegistry registry = createRegistry(filter);
+    registry.counter("http.requests", "uri", "/a");
+    registry.counter("http.requests", "uri", "/b");
+    Counter denied = registry.counter("http.requests", "uri", "/c");
+    denied.increment();
+    assertThat(registry.find("http.requests").tag("uri", "/c").counter()).isNull();
+    assertThat(denied.count()).isZero();
+    registry.counter("other.requests", "uri", "/c");
+    assertThat(registry.find("other.requests").counters()).hasSize(1);
+    assertThat(filter.getRejectedCount()).isEqualTo(1);
+  }
+
+  @Test
+  void seriesExceedingGlobalLimitAreDenied() {
+    CardinalityLimitingMeterFilter filter = createFilter(2, 10, CardinalityLimit.Mode.DENY);
+    MeterRegistry registry = createRegistry(filter);
+    registry.counter("first");
+    registry.counter("second");
+    registry.counter("third");
+    assertThat(registry.getMeters()).hasSize(2);
+    assertThat(filter.getSeriesCount()).isEqualTo(2);
+    assertThat(filter.getRejectedCount()).isEqualTo(1);
+  }
+
+  @Test
+  void seriesExceedingLimitAreRecordedInOverflowSeries() {
+    CardinalityLimitingMeterFilter filter = createFilter(10, 1, CardinalityLimit.Mode.OVERFLOW);
+    MeterRegistry registry = createRegistry(filter);
+    registry.counter("http.requests", "uri", "/a", "application", "test").increment();
+    registry.counter("http.requests", "uri", "/b", "application", "test").increment();
+    registry.counter("http.requests", "uri", "/c", "application", "test").increment();
+    assertThat(registry.find("http.requests").counters()).hasSize(2);
+    assertThat(registry.get("http.requests").tags("uri", "overflow", "application", "test")
+        .counter().count()).isEqualTo(2);
+    assertThat(filter.getSeriesCount()).isEqualTo(2);
+    assertThat(filter.getRejectedCount()).isEqualTo(2);
+  }
+
+  @Test
+  void overflowSeriesAreCountedOnce() {
+    CardinalityLimitingMeterFilter filter = createFilter(10, 2, CardinalityLimit.Mode.OVERFLOW);
+    MeterRegistry registry = createRegistry(filter);
+    registry.counter("http.requests", "uri", "/a", "application", "test").increment();
+    registry.counter("http.requests", "uri", "/b", "application", "other").increment();
+    registry.counter("http.requests", "uri", "/c", "application", "test").increment();
+    registry.counter("http.requests", "uri", "/d", "application", "other").increment();
+    registry.counter("http.requests", "uri", "/e", "application", "test").increment();
+    assertThat(registry.find("http.requests").counters()).hasSize(4);
+    assertThat(registry.get("http.requests").tags("uri", "overflow", "application", "other")
+        .counter().count()).isEqualTo(1);
+    assertThat(filter.getSeriesCount()).isEqualTo(4);
+    assertThat(filter.getRejectedCount()).isEqualTo(3);
+  }
+
+  private CardinalityLimitingMeterFilter createFilter(int maxSeries, int maxSeriesPerMeter,
+      CardinalityLimit.Mode mode) {
+    CardinalityLimit limit = new CardinalityLimit();
+    limit.setMaxSeries(maxSeries);
+    limit.setMaxSeriesPerMeter(maxSeriesPerMeter);
+    limit.setMode(mode);
+    return new CardinalityLimitingMeterFilter(limit, Collections.singleton("application"));
+  }
+
+  private MeterRegistry createRegistry(CardinalityLimitingMeterFilter filter) {
+    MeterRegistry registry = new SimpleMeterRegistry();
+    registry.config().meterFilter(filter);
+    return registry;
+  }
+
+}
@@ -0,0 +1,91 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+import com.wavefront.sdk.common.WavefrontSender;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link ChangedOnlyWavefrontSender}.
+ */
+class ChangedOnlyWavefrontSenderTests {
+
+  private static final long STEP = Duration.ofMinutes(1).toMillis();
+
+  private static final Map<String, String> TAGS = Collections.singletonMap("region", "eu");
+
+  private final WavefrontSender delegate = mock(WavefrontSender.class);
+
+  private final ChangedOnlyWavefrontSender sender = new ChangedOnlyWavefrontSender(this.delegate,
+      Duration.ofMillis(STEP), 3);
+
+  @Test
+  void unchangedPointIsNotSentAgain() throws IOException {
+    this.sender.sendMetric("test", 1.0, 0L, "host", TAGS);
+    this.sender.sendMetric("test", 1.0, STEP, "host", TAGS);
+    this.sender.sendMetric("test", 1.0, 2 * STEP, "host", TAGS);
+    verify(this.delegate).sendMetric(eq("test"), eq(1.0), anyLong(), eq("host"), eq(TAGS));
+  }
+
+  @Test
+  void changedPointIsSent() throws IOException {
+    this.sender.sendMetric("test", 1.0, 0L, "host", TAGS);
+    this.sender.sendMetric("test", 2.0, STEP, "host", TAGS);
+    verify(this.delegate).sendMetric("test", 1.0, 0L, "host", TAGS);
+    verify(this.delegate).sendMetric("test", 2.0, STEP, "host", TAGS);
+  }
+
+  @Test
+  void seriesAreTrackedIndependently() throws IOException {
+    Map<String, String> otherTags = Collections.singletonMap("region", "us");
+    this.sender.sendMetric("test", 1.0, 0L, "host", TAGS);
+    this.sender.sendMetric("test", 1.0, 0L, "host", otherTags);
+    verify(this.delegate).sendMetric("test", 1.0, 0L, "host", TAGS);
+    verify(this.delegate).sendMetric("test", 1.0, 0L, "host", otherTags);
+  }
+
+  @Test
+  void unchangedPointIsSentAfterFullRefreshSteps() throws IOException {
+    for (int i = 0; i < 7; i++) {
+      this.sender.sendMetric("test", 1.0, i * STEP, "host", TAGS);
+    }
+    verify(this.delegate).sendMetric("test", 1.0, 0L, "host", TAGS);
+    verify(this.delegate).sendMetric("test", 1.0, 3 * STEP, "host", TAGS);
+    verify(this.delegate).sendMetric("test", 1.0, 6 * STEP, "host", TAGS);
+  }
+
+  @Test
+  void deltaCounterIsAlwaysSent() throws IOException {
+    this.sender.sendMetric("∆test", 1.0, 0L, "host", TAGS);
+    this.sender.sendMetric("∆test", 1.0, STEP, "host", TAGS);
+    verify(this.delegate, times(2)).sendMetric(eq("∆test"), anyDouble(), anyLong(), eq("host"), eq(TAGS));
+  }
+
+  @Test
+  void pointsAndBytesAreMeasured() throws IOException {
+    MeterRegistry registry = new SimpleMeterRegistry();
+    this.sender.bindTo(registry);
+    this.sender.sendMetric("test", 1.0, 0L, "host", TAGS);
+    this.sender.sendMetric("test", 1.0, STEP, "host", TAGS);
+    this.sender.sendMetric("test", 2.0, 2 * STEP, "host", TAGS);
+    assertThat(registry.get("wavefront.metrics.publish.points").tag("result", "sent").functionCounter()
+        .count()).isEqualTo(2);
+    assertThat(registry.get("wavefront.metrics.publish.points").tag("result", "suppressed").functionCounter()
+        .count()).isEqualTo(1);
+    assertThat(registry.get("wavefront.metrics.publish.bytes").functionCounter().count()).isPositive();
+  }
+
+}
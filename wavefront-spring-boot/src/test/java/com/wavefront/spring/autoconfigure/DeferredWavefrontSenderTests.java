@@ -0,0 +1,54 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import com.wavefront.sdk.common.WavefrontSender;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests for {@link DeferredWavefrontSender}.
+ */
+class DeferredWavefrontSenderTests {
+
+  private final CompletableFuture<String> apiToken = new CompletableFuture<>();
+
+  private final WavefrontSender delegate = mock(WavefrontSender.class);
+
+  private final DeferredWavefrontSender sender = new DeferredWavefrontSender(this.apiToken,
+      (apiToken) -> this.delegate);
+
+  @Test
+  void pointIsDiscardedWhileApiTokenIsPending() throws IOException {
+    this.sender.sendMetric("test", 1.0, 0L, "host", Collections.emptyMap());
+    this.sender.flush();
+    verifyNoInteractions(this.delegate);
+  }
+
+  @Test
+  void pointIsSentOnceApiTokenIsAvailable() throws IOException {
+    this.apiToken.complete("abc-def");
+    this.sender.sendMetric("test", 1.0, 0L, "host", Collections.emptyMap());
+    verify(this.delegate).sendMetric("test", 1.0, 0L, "host", Collections.emptyMap());
+  }
+
+  @Test
+  void pointIsDiscardedIfApiTokenCouldNotBeNegotiated() throws IOException {
+    this.apiToken.completeExceptionally(new IllegalStateException("test"));
+    this.sender.sendMetric("test", 1.0, 0L, "host", Collections.emptyMap());
+    verifyNoInteractions(this.delegate);
+  }
+
+  @Test
+  void senderCreatedAfterCloseIsClosed() throws IOException {
+    this.sender.close();
+    this.apiToken.complete("abc-def");
+    verify(this.delegate).close();
+  }
+
+}
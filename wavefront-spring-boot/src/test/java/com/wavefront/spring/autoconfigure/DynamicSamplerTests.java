@@ -0,0 +1,185 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.wavefront.sdk.entities.tracing.sampling.RateSampler;
+import com.wavefront.sdk.entities.tracing.sampling.Sampler;
+import com.wavefront.spring.autoconfigure.DynamicSampler.Settings;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link DynamicSampler}.
+ */
+class DynamicSamplerTests {
+
+  private final AtomicReference<Settings> configuredSettings = new AtomicReference<>(Settings.of(null, null));
+
+  private final DynamicSampler sampler = new DynamicSampler(this.configuredSettings::get);
+
+  @Test
+  void everySpanIsSampledWhenNoSettingIsApplied() {
+    for (long traceId = 0; traceId < 100; traceId++) {
+      assertThat(this.sampler.sample("test", traceId * 7919, 0)).isTrue();
+    }
+    List<Sampler> samplers = this.sampler.getSamplers();
+    assertThat(samplers.get(0).sample("test", 1, 0)).isTrue();
+    assertThat(samplers.get(1).sample("test", 1, 100)).isFalse();
+  }
+
+  @Test
+  void probabilitySamplesSameTracesAsRateSampler() {
+    this.sampler.update(Settings.of(0.5, null));
+    RateSampler rateSampler = new RateSampler(0.5);
+    int sampled = 0;
+    for (long traceId = 0; traceId < 1000; traceId++) {
+      boolean decision = this.sampler.sample("test", traceId * 7919, 0);
+      assertThat(decision).isEqualTo(rateSampler.sample("test", traceId * 7919, 0));
+      sampled += decision ? 1 : 0;
+    }
+    assertThat(sampled).isBetween(1, 999);
+  }
+
+  @Test
+  void durationSamplesLongerSpans() {
+    this.sampler.update(Settings.of(null, Duration.ofMillis(100)));
+    assertThat(this.sampler.sample("test", 1, 50)).isFalse();
+    assertThat(this.sampler.sample("test", 1, 150)).isTrue();
+    List<Sampler> samplers = this.sampler.getSamplers();
+    assertThat(samplers.get(0).isEarly()).isTrue();
+    assertThat(samplers.get(0).sample("test", 1, 0)).isFalse();
+    assertThat(samplers.get(1).isEarly()).isFalse();
+    assertThat(samplers.get(1).sample("test", 1, 150)).isTrue();
+  }
+
+  @Test
+  void spanIsSampledIfAnySettingSamplesIt() {
+    this.sampler.update(Settings.of(0.0, Duration.ofMillis(100)));
+    assertThat(this.sampler.sample("test", 1, 50)).isFalse();
+    assertThat(this.sampler.sample("test", 1, 150)).isTrue();
+    this.sampler.update(Settings.of(1.0, Duration.ofMillis(100)));
+    assertThat(this.sampler.sample("test", 1, 50)).isTrue();
+  }
+
+  @Test
+  void spanWithErrorIsSampledWhenErrorsAreSampled() {
+    DynamicSampler sampler = new DynamicSampler(this.configuredSettings::get, null, true);
+    assertThat(sampler.sample("test", 1, 50, false)).isFalse();
+    assertThat(sampler.sample("test", 1, 50, true)).isTrue();
+    assertThat(sampler.sampleEarly(1)).isFalse();
+    assertThat(sampler.sampleLate("test", 50, true)).isTrue();
+  }
+
+  @Test
+  void slowSpanIsSampledWhenLatencyIsSampled() {
+    DynamicSampler sampler = new DynamicSampler(this.configuredSettings::get,
+        new OperationLatencySampler(0.9, 10, new MockClock()), false);
+    for (int i = 1; i <= OperationLatencySampler.MIN_SPANS; i++) {
+      sampler.sample("test", 1, i, false);
+    }
+    assertThat(sampler.sampleEarly(1)).isFalse();
+    assertThat(sampler.sample("test", 1, 50, false)).isFalse();
+    assertThat(sampler.sample("test", 1, 200, false)).isTrue();
+    assertThat(sampler.getSamplers().get(1).sample("test", 1, 200)).isTrue();
+  }
+
+  @Test
+  void latencyIsLearnedFromSpansSampledByProbability() {
+    this.configuredSettings.set(Settings.of(1.0, null));
+    OperationLatencySampler latencySampler = new OperationLatencySampler(0.9, 10, new MockClock());
+    DynamicSampler sampler = new DynamicSampler(this.configuredSettings::get, latencySampler, false);
+    sampler.sample("test", 1, 10, false);
+    assertThat(latencySampler.getOperationCount()).isEqualTo(1);
+  }
+
+  @Test
+  void resetAppliesConfiguredSettings() {
+    this.sampler.update(Settings.of(0.1, null));
+    this.configuredSettings.set(Settings.of(0.3, Duration.ofSeconds(1)));
+    this.sampler.reset();
+    assertThat(this.sampler.getSettings()).isEqualTo(Settings.of(0.3, Duration.ofSeconds(1)));
+  }
+
+  @Test
+  void settingsAndDecisionsAreExposedAsMeters() {
+    MeterRegistry registry = new SimpleMeterRegistry();
+    this.sampler.bindTo(registry);
+    assertThat(registry.get("sampler.probability").gauge().value()).isEqualTo(1.0);
+    assertThat(registry.get("sampler.duration").timeGauge().value(TimeUnit.MILLISECONDS)).isNaN();
+    this.sampler.update(Settings.of(null, Duration.ofMillis(100)));
+    this.sampler.update(Settings.of(null, Duration.ofMillis(100)));
+    assertThat(registry.get("sampler.probability").gauge().value()).isEqualTo(0.0);
+    assertThat(registry.get("sampler.duration").timeGauge().value(TimeUnit.MILLISECONDS)).isEqualTo(100);
+    assertThat(registry.get("sampler.updates").functionCounter().count()).isEqualTo(1);
+    this.sampler.sample("test", 1, 50);
+    this.sampler.sample("test", 1, 150);
+    assertThat(registry.get("sampler.spans").tags("sampler", "duration", "result", "sampled").functionCounter()
+        .count()).isEqualTo(1);
+    assertThat(registry.get("sampler.spans").tags("sampler", "duration", "result", "unsampled").functionCounter()
+        .count()).isEqualTo(1);
+    assertThat(registry.find("sampler.spans").tag("sampler", "rate").functionCounters()).isEmpty();
+  }
+
+  @Test
+  void latencyAndErrorDecisionsAreExposedAsMeters() {
+    DynamicSampler sampler = new DynamicSampler(this.configuredSettings::get,
+        new OperationLatencySampler(0.9, 10, new MockClock()), true);
+    MeterRegistry registry = new SimpleMeterRegistry();
+    sampler.bindTo(registry);
+    assertThat(registry.get("sampler.probability").gauge().value()).isEqualTo(0.0);
+    assertThat(registry.get("sampler.latency.quantile").gauge().value()).isEqualTo(0.9);
+    sampler.sample("test", 1, 50, true);
+    assertThat(registry.get("sampler.latency.operations").gauge().value()).isEqualTo(1);
+    assertThat(registry.get("sampler.spans").tags("sampler", "latency", "result", "unsampled").functionCounter()
+        .count()).isEqualTo(1);
+    assertThat(registry.get("sampler.spans").tags("sampler", "error", "result", "sampled").functionCounter()
+        .count()).isEqualTo(1);
+  }
+
+  @Test
+  void decisionsOfEverySamplerAreCounted() {
+    DynamicSampler sampler = new DynamicSampler(this.configuredSettings::get, null, true);
+    MeterRegistry registry = new SimpleMeterRegistry();
+    sampler.bindTo(registry);
+    sampler.update(Settings.of(1.0, Duration.ofMillis(100)));
+    assertThat(sampler.sample("test", 1, 150, true)).isTrue();
+    assertThat(sampler.sampleLate("test", 150, true)).isTrue();
+    assertThat(registry.get("sampler.spans").tags("sampler", "rate", "result", "sampled").functionCounter()
+        .count()).isEqualTo(1);
+    assertThat(registry.get("sampler.spans").tags("sampler", "duration", "result", "sampled").functionCounter()
+        .count()).isEqualTo(2);
+    assertThat(registry.get("sampler.spans").tags("sampler", "error", "result", "sampled").functionCounter()
+        .count()).isEqualTo(2);
+  }
+
+  @Test
+  void lateSamplerOfOpenTracingDoesNotSampleErrors() {
+    DynamicSampler sampler = new DynamicSampler(this.configuredSettings::get, null, true);
+    MeterRegistry registry = new SimpleMeterRegistry();
+    sampler.bindTo(registry);
+    assertThat(sampler.getSamplers().get(1).sample("test", 1, 50)).isFalse();
+    assertThat(registry.get("sampler.spans").tags("sampler", "error", "result", "unsampled").functionCounter()
+        .count()).isZero();
+  }
+
+  @Test
+  void settingsWithInvalidProbabilityAreRejected() {
+    assertThatIllegalArgumentException().isThrownBy(() -> Settings.of(1.5, null))
+        .withMessageContaining("between 0.0 and 1.0");
+  }
+
+  @Test
+  void settingsWithNegativeDurationAreRejected() {
+    assertThatIllegalArgumentException().isThrownBy(() -> Settings.of(null, Duration.ofSeconds(-1)))
+        .withMessageContaining("must not be negative");
+  }
+
+}
@@ -0,0 +1,60 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.time.Duration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link JfrMetrics}.
+ */
+@EnabledForJreRange(min = JRE.JAVA_14)
+class JfrMetricsTests {
+
+  @Test
+  void garbageCollectionIsRecorded() throws Exception {
+    MeterRegistry registry = new SimpleMeterRegistry();
+    try (JfrMetrics metrics = new JfrMetrics(Duration.ofMillis(10))) {
+      metrics.bindTo(registry);
+      long deadline = System.currentTimeMillis() + 10000;
+      while (registry.find("jfr.gc.pause").timer() == null && System.currentTimeMillis() < deadline) {
+        System.gc();
+        Thread.sleep(100);
+      }
+      Timer timer = registry.find("jfr.gc.pause").timer();
+      assertThat(timer).isNotNull();
+      assertThat(timer.count()).isPositive();
+    }
+  }
+
+  @Test
+  void eventsAreNotRecordedAfterClose() throws Exception {
+    MeterRegistry registry = new SimpleMeterRegistry();
+    JfrMetrics metrics = new JfrMetrics(Duration.ofMillis(10));
+    metrics.bindTo(registry);
+    long deadline = System.currentTimeMillis() + 10000;
+    while (count(registry) == 0 && System.currentTimeMillis() < deadline) {
+      System.gc();
+      Thread.sleep(100);
+    }
+    assertThat(count(registry)).isPositive();
+    metrics.close();
+    long count = count(registry);
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+      Thread.sleep(200);
+    }
+    assertThat(count(registry)).isEqualTo(count);
+  }
+
+  private long count(MeterRegistry registry) {
+    return registry.find("jfr.gc.pause").timers().stream().mapToLong(Timer::count).sum();
+  }
+
+}
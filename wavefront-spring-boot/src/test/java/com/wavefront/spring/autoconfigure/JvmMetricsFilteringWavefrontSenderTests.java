@@ -0,0 +1,60 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
+
+import com.wavefront.sdk.common.WavefrontSender;
+import com.wavefront.spring.autoconfigure.WavefrontProperties.Metrics.Jvm.Group;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link JvmMetricsFilteringWavefrontSender}.
+ */
+class JvmMetricsFilteringWavefrontSenderTests {
+
+  private final WavefrontSender delegate = mock(WavefrontSender.class);
+
+  @Test
+  void pointOfEnabledGroupIsSent() throws IOException {
+    WavefrontSender sender = new JvmMetricsFilteringWavefrontSender(this.delegate, EnumSet.of(Group.GC));
+    sender.sendMetric("app-agent.jvm.gc.G1-Young-Generation.count", 1.0, 0L, "host", Collections.emptyMap());
+    verify(this.delegate).sendMetric("app-agent.jvm.gc.G1-Young-Generation.count", 1.0, 0L, "host",
+        Collections.emptyMap());
+  }
+
+  @Test
+  void pointOfDisabledGroupIsDropped() throws IOException {
+    WavefrontSender sender = new JvmMetricsFilteringWavefrontSender(this.delegate, EnumSet.of(Group.GC));
+    sender.sendMetric("app-agent.jvm.thread-states.count", 1.0, 0L, "host", Collections.emptyMap());
+    sender.sendMetric("app-agent.jvm.uptime", 1.0, 0L, "host", Collections.emptyMap());
+    verify(this.delegate, never()).sendMetric(anyString(), anyDouble(), any(), any(), anyMap());
+  }
+
+  @Test
+  void memoryPoolsAreSeparateFromMemory() throws IOException {
+    WavefrontSender sender = new JvmMetricsFilteringWavefrontSender(this.delegate, EnumSet.of(Group.MEMORY));
+    sender.sendMetric("app-agent.jvm.memory.heap.used", 1.0, 0L, "host", Collections.emptyMap());
+    sender.sendMetric("app-agent.jvm.memory.pools.Metaspace.used", 1.0, 0L, "host", Collections.emptyMap());
+    verify(this.delegate).sendMetric("app-agent.jvm.memory.heap.used", 1.0, 0L, "host", Collections.emptyMap());
+    verify(this.delegate, never()).sendMetric("app-agent.jvm.memory.pools.Metaspace.used", 1.0, 0L, "host",
+        Collections.emptyMap());
+  }
+
+  @Test
+  void pointOutsideOfJvmGroupsIsSent() throws IOException {
+    WavefrontSender sender = new JvmMetricsFilteringWavefrontSender(this.delegate, EnumSet.noneOf(Group.class));
+    sender.sendMetric("~sdk.java.wavefront_jvm.reporter.points.valid", 1.0, 0L, "host", Collections.emptyMap());
+    verify(this.delegate).sendMetric("~sdk.java.wavefront_jvm.reporter.points.valid", 1.0, 0L, "host",
+        Collections.emptyMap());
+  }
+
+}
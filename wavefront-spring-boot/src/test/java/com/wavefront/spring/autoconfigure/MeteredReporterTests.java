@@ -0,0 +1,54 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.io.IOException;
+
+import com.wavefront.opentracing.WavefrontSpan;
+import com.wavefront.opentracing.reporting.Reporter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link MeteredReporter}.
+ */
+class MeteredReporterTests {
+
+  private final Reporter first = mock(Reporter.class);
+
+  private final Reporter second = mock(Reporter.class);
+
+  @Test
+  void spanIsReportedOnCallingThread() throws IOException {
+    MeteredReporter reporter = new MeteredReporter(this.first, this.second);
+    WavefrontSpan span = mock(WavefrontSpan.class);
+    reporter.report(span);
+    verify(this.first).report(span);
+    verify(this.second).report(span);
+  }
+
+  @Test
+  void spansAndErrorsAreCounted() throws IOException {
+    willThrow(new IOException("test")).given(this.first).report(any());
+    given(this.second.getFailureCount()).willReturn(3);
+    MeteredReporter reporter = new MeteredReporter(this.first, this.second);
+    MeterRegistry registry = new SimpleMeterRegistry();
+    reporter.bindTo(registry);
+    WavefrontSpan span = mock(WavefrontSpan.class);
+    assertThatIOException().isThrownBy(() -> reporter.report(span)).withMessage("test");
+    verify(this.second).report(span);
+    assertThat(registry.get("reporter.spans.received").functionCounter().count()).isEqualTo(1);
+    String name = this.first.getClass().getSimpleName();
+    assertThat(registry.get("reporter.errors").tag("reporter", name).functionCounter().count()).isEqualTo(1);
+    assertThat(registry.get("reporter.errors").tag("reporter", name + "-2").functionCounter().count())
+        .isEqualTo(3);
+  }
+
+}
@@ -0,0 +1,54 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.UUID;
+
+import com.wavefront.sdk.common.WavefrontSender;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link MeteredWavefrontSender}.
+ */
+class MeteredWavefrontSenderTests {
+
+  private final WavefrontSender delegate = mock(WavefrontSender.class);
+
+  private final MeteredWavefrontSender sender = new MeteredWavefrontSender(this.delegate, "test");
+
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+
+  @Test
+  void itemsAreCountedPerType() throws IOException {
+    this.sender.bindTo(this.registry);
+    this.sender.sendMetric("test", 1.0, 0L, "host", Collections.emptyMap());
+    this.sender.sendFormattedMetric("test 1.0 source=host");
+    this.sender.sendSpan("test", 1L, 2L, "host", UUID.randomUUID(), UUID.randomUUID(), null, null, null, null);
+    verify(this.delegate).sendMetric("test", 1.0, 0L, "host", Collections.emptyMap());
+    assertThat(getSent("metrics")).isEqualTo(2);
+    assertThat(getSent("spans")).isEqualTo(1);
+    assertThat(getSent("histograms")).isEqualTo(0);
+  }
+
+  @Test
+  void itemRejectedByDelegateIsNotCounted() throws IOException {
+    this.sender.bindTo(this.registry);
+    willThrow(new IOException("test")).given(this.delegate).sendFormattedMetric("test");
+    assertThatIOException().isThrownBy(() -> this.sender.sendFormattedMetric("test"));
+    assertThat(getSent("metrics")).isEqualTo(0);
+  }
+
+  private double getSent(String type) {
+    return this.registry.get("wavefront.sender.sent").tags("sender", "test", "type", type).functionCounter()
+        .count();
+  }
+
+}
@@ -0,0 +1,77 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import org.springframework.boot.json.JsonParser;
+import org.springframework.boot.json.JsonParserFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StreamUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the GraalVM native-image configuration of the starter.
+ */
+class NativeImageConfigurationTests {
+
+  private static final String LOCATION = "META-INF/native-image/com.wavefront/wavefront-spring-boot/";
+
+  private final JsonParser jsonParser = JsonParserFactory.getJsonParser();
+
+  @Test
+  @EnabledForJreRange(min = JRE.JAVA_14)
+  @SuppressWarnings("unchecked")
+  void reflectionHintsMatchExistingMembers() throws Exception {
+    for (Object entry : this.jsonParser.parseList(read("reflect-config.json"))) {
+      Map<String, Object> type = (Map<String, Object>) entry;
+      Class<?> target = ClassUtils.forName((String) type.get("name"), null);
+      for (Object field : (List<Object>) type.getOrDefault("fields", Collections.emptyList())) {
+        assertThat(target.getDeclaredField((String) ((Map<String, Object>) field).get("name"))).isNotNull();
+      }
+      for (Object method : (List<Object>) type.getOrDefault("methods", Collections.emptyList())) {
+        Map<String, Object> member = (Map<String, Object>) method;
+        List<Class<?>> parameterTypes = new ArrayList<>();
+        for (Object parameterType : (List<Object>) member.get("parameterTypes")) {
+          parameterTypes.add(ClassUtils.forName((String) parameterType, null));
+        }
+        Class<?>[] parameters = parameterTypes.toArray(new Class<?>[0]);
+        if ("<init>".equals(member.get("name"))) {
+          assertThat(target.getDeclaredConstructor(parameters)).isNotNull();
+        }
+        else {
+          assertThat(target.getDeclaredMethod((String) member.get("name"), parameters)).isNotNull();
+        }
+      }
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void resourceHintsMatchExistingResources() throws IOException {
+    Map<String, Object> resources = (Map<String, Object>) this.jsonParser
+        .parseMap(read("resource-config.json")).get("resources");
+    for (Object include : (List<Object>) resources.get("includes")) {
+      String pattern = (String) ((Map<String, Object>) include).get("pattern");
+      String location = pattern.replace("\\Q", "").replace("\\E", "");
+      assertThat(new ClassPathResource(location).exists()).as(location).isTrue();
+    }
+  }
+
+  private String read(String name) throws IOException {
+    try (InputStream in = new ClassPathResource(LOCATION + name).getInputStream()) {
+      return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+    }
+  }
+
+}
@@ -0,0 +1,76 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.time.Duration;
+
+import io.micrometer.core.instrument.MockClock;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link OperationLatencySampler}.
+ */
+class OperationLatencySamplerTests {
+
+  private final MockClock clock = new MockClock();
+
+  private final OperationLatencySampler sampler = new OperationLatencySampler(0.9, 2, this.clock);
+
+  @Test
+  void spanIsNotSampledUntilEnoughDurationsAreRecorded() {
+    for (int i = 1; i < OperationLatencySampler.MIN_SPANS; i++) {
+      assertThat(this.sampler.sample("test", 0, i * 10)).isFalse();
+    }
+  }
+
+  @Test
+  void spanSlowerThanQuantileIsSampled() {
+    recordDurations("test");
+    assertThat(this.sampler.sample("test", 0, 50)).isFalse();
+    assertThat(this.sampler.sample("test", 0, 200)).isTrue();
+  }
+
+  @Test
+  void quantileIsTrackedPerOperation() {
+    recordDurations("fast");
+    for (int i = 1; i <= OperationLatencySampler.MIN_SPANS; i++) {
+      this.sampler.sample("slow", 0, i * 100);
+    }
+    assertThat(this.sampler.sample("fast", 0, 500)).isTrue();
+    assertThat(this.sampler.sample("slow", 0, 500)).isFalse();
+  }
+
+  @Test
+  void quantileFollowsRecentDurations() {
+    recordDurations("test");
+    this.clock.add(Duration.ofMinutes(3));
+    for (int i = 1; i <= OperationLatencySampler.MIN_SPANS; i++) {
+      this.sampler.sample("test", 0, i * 10);
+    }
+    this.clock.add(Duration.ofSeconds(1));
+    assertThat(this.sampler.sample("test", 0, 200)).isFalse();
+  }
+
+  @Test
+  void operationsBeyondMaximumAreNotTracked() {
+    this.sampler.sample("first", 0, 10);
+    this.sampler.sample("second", 0, 10);
+    recordDurations("third");
+    assertThat(this.sampler.sample("third", 0, 1000)).isFalse();
+    assertThat(this.sampler.getOperationCount()).isEqualTo(2);
+  }
+
+  @Test
+  void quantileOutOfRangeIsRejected() {
+    assertThatIllegalArgumentException().isThrownBy(() -> new OperationLatencySampler(1.0, 10, this.clock))
+        .withMessageContaining("between 0.0 and 1.0");
+  }
+
+  private void recordDurations(String operationName) {
+    for (int i = 1; i <= OperationLatencySampler.MIN_SPANS; i++) {
+      this.sampler.sample(operationName, 0, i);
+    }
+  }
+
+}
@@ -0,0 +1,361 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+
+import com.sun.net.httpserver.HttpServer;
+import com.wavefront.sdk.common.WavefrontSender;
+import com.wavefront.sdk.common.clients.WavefrontClient;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link ShardedWavefrontSender}.
+ */
+class ShardedWavefrontSenderTests {
+
+  private static final Duration RETRY_INTERVAL = Duration.ofSeconds(30);
+
+  private final TestClock clock = new TestClock();
+
+  @Test
+  void spansOfATraceAreSentToTheSameEndpoint() throws IOException {
+    Map<String, Set<UUID>> traceIds = new LinkedHashMap<>();
+    ShardedWavefrontSender sender = new ShardedWavefrontSender(recordingSenders(traceIds, "a", "b", "c"),
+        RETRY_INTERVAL, (endpoint) -> true, this.clock);
+    List<UUID> traces = sendSpans(sender, 300);
+    Set<UUID> all = new HashSet<>();
+    traceIds.values().forEach((ids) -> {
+      assertThat(ids).isNotEmpty();
+      ids.forEach((id) -> assertThat(all.add(id)).as("trace sent to a single endpoint").isTrue());
+    });
+    assertThat(all).containsExactlyInAnyOrderElementsOf(traces);
+  }
+
+  @Test
+  void addingAnEndpointOnlyMovesTracesToIt() throws IOException {
+    Map<String, Set<UUID>> before = new LinkedHashMap<>();
+    List<UUID> traces = sendSpans(new ShardedWavefrontSender(recordingSenders(before, "a", "b"),
+        RETRY_INTERVAL, (endpoint) -> true, this.clock), 1000);
+    Map<String, Set<UUID>> after = new LinkedHashMap<>();
+    ShardedWavefrontSender sender = new ShardedWavefrontSender(recordingSenders(after, "a", "b", "c"),
+        RETRY_INTERVAL, (endpoint) -> true, this.clock);
+    for (UUID traceId : traces) {
+      sender.sendSpan("test", 1L, 2L, "host", traceId, UUID.randomUUID(), null, null, null, null);
+    }
+    long moved = traces.stream().filter((traceId) -> !after.get("c").contains(traceId))
+        .filter((traceId) -> before.get("a").contains(traceId) != after.get("a").contains(traceId)).count();
+    assertThat(moved).isZero();
+    assertThat(after.get("c")).hasSizeBetween(150, 500);
+  }
+
+  @Test
+  void seriesIsAlwaysSentToTheSameEndpoint() throws IOException {
+    WavefrontSender first = mock(WavefrontSender.class);
+    WavefrontSender second = mock(WavefrontSender.class);
+    ShardedWavefrontSender sender = new ShardedWavefrontSender(senders(first, second), RETRY_INTERVAL,
+        (endpoint) -> true, this.clock);
+    Map<String, String> tags = Collections.singletonMap("uri", "/test");
+    sender.sendMetric("test", 1.0, 0L, "host", tags);
+    sender.sendMetric("test", 2.0, 1L, "host", new LinkedHashMap<>(tags));
+    WavefrontSender used = mockingDetails(first).getInvocations().isEmpty() ? second : first;
+    WavefrontSender unused = (used == first) ? second : first;
+    verify(used, times(2)).sendMetric(anyString(), anyDouble(), any(), anyString(), anyMap());
+    verify(unused, never()).sendMetric(anyString(), anyDouble(), any(), anyString(), anyMap());
+  }
+
+  @Test
+  void dataIsSentToNextEndpointWhenSenderFails() throws IOException {
+    WavefrontSender failing = mock(WavefrontSender.class);
+    willThrow(new IOException("test")).given(failing).sendMetric(anyString(), anyDouble(), any(), any(), anyMap());
+    WavefrontSender healthy = mock(WavefrontSender.class);
+    ShardedWavefrontSender sender = new ShardedWavefrontSender(senders(failing, healthy), RETRY_INTERVAL,
+        (endpoint) -> true, this.clock);
+    for (int i = 0; i < 100; i++) {
+      sender.sendMetric("test" + i, 1.0, 0L, "host", Collections.emptyMap());
+    }
+    verify(healthy, times(100)).sendMetric(anyString(), anyDouble(), any(), any(), anyMap());
+    verify(failing, times(1)).sendMetric(anyString(), anyDouble(), any(), any(), anyMap());
+    assertThat(sender.isHealthy("endpoint-0")).isFalse();
+    assertThat(sender.getFailoverCount()).isGreaterThan(0);
+  }
+
+  @Test
+  void endpointWithNewFailuresIsSkippedUntilRetryInterval() throws IOException {
+    WavefrontSender first = mock(WavefrontSender.class);
+    WavefrontSender second = mock(WavefrontSender.class);
+    ShardedWavefrontSender sender = new ShardedWavefrontSender(senders(first, second), RETRY_INTERVAL,
+        (endpoint) -> true, this.clock);
+    given(first.getFailureCount()).willReturn(3);
+    sender.checkHealth();
+    assertThat(sender.isHealthy("endpoint-0")).isFalse();
+    assertThat(sender.isHealthy("endpoint-1")).isTrue();
+    this.clock.advance(RETRY_INTERVAL);
+    assertThat(sender.isHealthy("endpoint-0")).isTrue();
+    sender.checkHealth();
+    assertThat(sender.isHealthy("endpoint-0")).isTrue();
+  }
+
+  @Test
+  void endpointThatFailsHealthCheckIsSkipped() throws IOException {
+    WavefrontSender first = mock(WavefrontSender.class);
+    WavefrontSender second = mock(WavefrontSender.class);
+    ShardedWavefrontSender sender = new ShardedWavefrontSender(senders(first, second), RETRY_INTERVAL,
+        (endpoint) -> !endpoint.equals("endpoint-0"), this.clock);
+    sender.checkHealth();
+    for (int i = 0; i < 100; i++) {
+      sender.sendMetric("test" + i, 1.0, 0L, "host", Collections.emptyMap());
+    }
+    verify(first, never()).sendMetric(anyString(), anyDouble(), any(), any(), anyMap());
+    verify(second, times(100)).sendMetric(anyString(), anyDouble(), any(), any(), anyMap());
+  }
+
+  @Test
+  void flushDoesNotCheckHealth() throws IOException {
+    WavefrontSender first = mock(WavefrontSender.class);
+    WavefrontSender second = mock(WavefrontSender.class);
+    ShardedWavefrontSender sender = new ShardedWavefrontSender(senders(first, second), RETRY_INTERVAL,
+        (endpoint) -> false, this.clock);
+    given(first.getFailureCount()).willReturn(3);
+    sender.flush();
+    verify(first).flush();
+    verify(second).flush();
+    assertThat(sender.isHealthy("endpoint-0")).isTrue();
+    assertThat(sender.isHealthy("endpoint-1")).isTrue();
+  }
+
+  @Test
+  void endpointIsReachableWhenItAcceptsConnections() throws IOException {
+    ProxyStandIn proxy = new ProxyStandIn();
+    String uri = proxy.getUri();
+    assertThat(ShardedWavefrontSender.isReachable(uri)).isTrue();
+    assertThat(ShardedWavefrontSender.isReachable(uri.replace("http://", "proxy://"))).isTrue();
+    proxy.stop();
+    assertThat(ShardedWavefrontSender.isReachable(uri)).isFalse();
+    assertThat(ShardedWavefrontSender.isReachable("not a uri")).isFalse();
+  }
+
+  @Test
+  void failureCountIsSummed() {
+    WavefrontSender first = mock(WavefrontSender.class);
+    given(first.getFailureCount()).willReturn(2);
+    WavefrontSender second = mock(WavefrontSender.class);
+    given(second.getFailureCount()).willReturn(3);
+    assertThat(new ShardedWavefrontSender(senders(first, second), RETRY_INTERVAL, (endpoint) -> true, this.clock)
+        .getFailureCount()).isEqualTo(5);
+  }
+
+  @Test
+  void closeClosesAllSenders() throws IOException {
+    WavefrontSender first = mock(WavefrontSender.class);
+    WavefrontSender second = mock(WavefrontSender.class);
+    new ShardedWavefrontSender(senders(first, second), RETRY_INTERVAL, (endpoint) -> true, this.clock).close();
+    verify(first).close();
+    verify(second).close();
+  }
+
+  @Test
+  void proxiesReceiveEveryTraceOnASingleEndpoint() throws IOException {
+    ProxyStandIn first = new ProxyStandIn();
+    ProxyStandIn second = new ProxyStandIn();
+    Map<String, WavefrontSender> senders = new LinkedHashMap<>();
+    senders.put(first.getUri(), createClient(first.getUri()));
+    senders.put(second.getUri(), createClient(second.getUri()));
+    ShardedWavefrontSender sender = new ShardedWavefrontSender(senders, RETRY_INTERVAL);
+    try {
+      List<UUID> traces = sendSpans(sender, 50);
+      sender.flush();
+      Set<String> firstTraces = first.getTraceIds();
+      Set<String> secondTraces = second.getTraceIds();
+      assertThat(firstTraces).isNotEmpty().doesNotContainAnyElementsOf(secondTraces);
+      assertThat(secondTraces).isNotEmpty();
+      assertThat(firstTraces.size() + secondTraces.size()).isEqualTo(traces.size());
+    }
+    finally {
+      sender.close();
+      first.stop();
+      second.stop();
+    }
+  }
+
+  @Test
+  void proxyThatIsDownIsSkipped() throws IOException {
+    ProxyStandIn up = new ProxyStandIn();
+    ProxyStandIn down = new ProxyStandIn();
+    down.stop();
+    Map<String, WavefrontSender> senders = new LinkedHashMap<>();
+    senders.put(up.getUri(), createClient(up.getUri()));
+    senders.put(down.getUri(), createClient(down.getUri()));
+    ShardedWavefrontSender sender = new ShardedWavefrontSender(senders, RETRY_INTERVAL);
+    try {
+      for (int i = 0; i < 20; i++) {
+        sender.sendMetric("first" + i, 1.0, null, "host", Collections.emptyMap());
+      }
+      sender.flush();
+      sender.checkHealth();
+      assertThat(sender.isHealthy(down.getUri())).isFalse();
+      for (int i = 0; i < 20; i++) {
+        sender.sendMetric("second" + i, 1.0, null, "host", Collections.emptyMap());
+      }
+      sender.flush();
+      assertThat(up.getLines().stream().filter((line) -> line.startsWith("\"second"))).hasSize(20);
+      assertThat(sender.getFailoverCount()).isGreaterThan(0);
+    }
+    finally {
+      sender.close();
+      up.stop();
+    }
+  }
+
+  private static WavefrontSender createClient(String uri) {
+    return new WavefrontClient.Builder(uri).flushIntervalSeconds(60).build();
+  }
+
+  private static List<UUID> sendSpans(WavefrontSender sender, int traceCount) throws IOException {
+    List<UUID> traces = new ArrayList<>();
+    for (int i = 0; i < traceCount; i++) {
+      UUID traceId = UUID.randomUUID();
+      traces.add(traceId);
+      for (int span = 0; span < 3; span++) {
+        sender.sendSpan("test", 1L, 2L, "host", traceId, UUID.randomUUID(), Collections.emptyList(),
+            Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+      }
+    }
+    return traces;
+  }
+
+  private static Map<String, WavefrontSender> recordingSenders(Map<String, Set<UUID>> traceIds,
+      String... endpoints) throws IOException {
+    Map<String, WavefrontSender> senders = new LinkedHashMap<>();
+    for (String endpoint : endpoints) {
+      Set<UUID> ids = new HashSet<>();
+      traceIds.put(endpoint, ids);
+      WavefrontSender sender = mock(WavefrontSender.class);
+      willAnswer((invocation) -> ids.add(invocation.getArgument(4))).given(sender).sendSpan(anyString(),
+          anyLong(), anyLong(), anyString(), any(), any(), any(), any(), any(), any());
+      senders.put(endpoint, sender);
+    }
+    return senders;
+  }
+
+  private static Map<String, WavefrontSender> senders(WavefrontSender... senders) {
+    Map<String, WavefrontSender> result = new LinkedHashMap<>();
+    for (int i = 0; i < senders.length; i++) {
+      result.put("endpoint-" + i, senders[i]);
+    }
+    return result;
+  }
+
+  /**
+   * A stand-in for a Wavefront proxy that records the lines it receives.
+   */
+  private static final class ProxyStandIn {
+
+    private final HttpServer server;
+
+    private final List<String> lines = Collections.synchronizedList(new ArrayList<>());
+
+    ProxyStandIn() throws IOException {
+      this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+      this.server.createContext("/", (exchange) -> {
+        InputStream body = exchange.getRequestBody();
+        if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+          body = new GZIPInputStream(body);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+          reader.lines().filter((line) -> !line.isEmpty()).forEach(this.lines::add);
+        }
+        exchange.sendResponseHeaders(202, -1);
+        exchange.close();
+      });
+      this.server.start();
+    }
+
+    String getUri() {
+      return "http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort();
+    }
+
+    List<String> getLines() {
+      synchronized (this.lines) {
+        return new ArrayList<>(this.lines);
+      }
+    }
+
+    Set<String> getTraceIds() {
+      Set<String> traceIds = ConcurrentHashMap.newKeySet();
+      for (String line : getLines()) {
+        int start = line.indexOf("traceId=");
+        if (start != -1) {
+          int end = line.indexOf(' ', start);
+          traceIds.add(line.substring(start, (end != -1) ? end : line.length()));
+        }
+      }
+      return traceIds;
+    }
+
+    void stop() {
+      this.server.stop(0);
+    }
+
+  }
+
+  private static final class TestClock extends Clock {
+
+    private Instant instant = Instant.EPOCH.plusSeconds(3600);
+
+    void advance(Duration duration) {
+      this.instant = this.instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return this.instant;
+    }
+
+  }
+
+}
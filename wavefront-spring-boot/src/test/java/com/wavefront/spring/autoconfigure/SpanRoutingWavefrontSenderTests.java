@@ -0,0 +1,75 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.UUID;
+
+import com.wavefront.sdk.common.WavefrontSender;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link SpanRoutingWavefrontSender}.
+ */
+class SpanRoutingWavefrontSenderTests {
+
+  private final WavefrontSender delegate = mock(WavefrontSender.class);
+
+  private final WavefrontSender spanSender = mock(WavefrontSender.class);
+
+  private final SpanRoutingWavefrontSender sender = new SpanRoutingWavefrontSender(this.delegate,
+      this.spanSender);
+
+  @Test
+  void spanIsSentWithSpanSender() throws IOException {
+    UUID traceId = UUID.randomUUID();
+    UUID spanId = UUID.randomUUID();
+    this.sender.sendSpan("test", 1L, 2L, "host", traceId, spanId, null, null, null, null);
+    verify(this.spanSender).sendSpan("test", 1L, 2L, "host", traceId, spanId, null, null, null, null);
+    verify(this.delegate, never()).sendSpan(anyString(), anyLong(), anyLong(), any(), any(), any(), any(),
+        any(), any(), any());
+  }
+
+  @Test
+  void metricIsSentWithDelegate() throws IOException {
+    this.sender.sendMetric("test", 1.0, 0L, "host", Collections.emptyMap());
+    verify(this.delegate).sendMetric("test", 1.0, 0L, "host", Collections.emptyMap());
+  }
+
+  @Test
+  void failureCountIsSummed() {
+    given(this.delegate.getFailureCount()).willReturn(2);
+    given(this.spanSender.getFailureCount()).willReturn(3);
+    assertThat(this.sender.getFailureCount()).isEqualTo(5);
+  }
+
+  @Test
+  void tracingSenderIsSpanSenderOfDecoratedRoutingSender() {
+    WavefrontSender decorated = new MeteredWavefrontSender(this.sender, "test");
+    assertThat(SpanRoutingWavefrontSender.getTracingSender(decorated)).isSameAs(this.spanSender);
+  }
+
+  @Test
+  void tracingSenderIsSenderItselfWithoutRouting() {
+    WavefrontSender decorated = new MeteredWavefrontSender(this.delegate, "test");
+    assertThat(SpanRoutingWavefrontSender.getTracingSender(decorated)).isSameAs(decorated);
+  }
+
+  @Test
+  void closeClosesSpanSenderEvenIfDelegateFails() throws IOException {
+    willThrow(new IOException("test")).given(this.delegate).close();
+    assertThatIOException().isThrownBy(this.sender::close);
+    verify(this.spanSender).close();
+  }
+
+}
@@ -0,0 +1,156 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import com.wavefront.sdk.common.WavefrontSender;
+import com.wavefront.spring.autoconfigure.SpanSenderCircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link SpanSenderCircuitBreaker}.
+ */
+class SpanSenderCircuitBreakerTests {
+
+  private static final Duration CHECK_INTERVAL = Duration.ofSeconds(5);
+
+  private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+  private final TestClock clock = new TestClock();
+
+  private final WavefrontSender sender = mock(WavefrontSender.class);
+
+  @Test
+  void circuitStaysClosedWhenSenderIsHealthy() {
+    SpanSenderCircuitBreaker circuitBreaker = createCircuitBreaker(this.sender);
+    for (int i = 0; i < 5; i++) {
+      assertThat(circuitBreaker.allowRequest()).isTrue();
+      circuitBreaker.recordSuccess();
+      this.clock.advance(CHECK_INTERVAL);
+    }
+    assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+  }
+
+  @Test
+  void circuitOpensAfterConsecutiveUnhealthyIntervals() {
+    SpanSenderCircuitBreaker circuitBreaker = createCircuitBreaker(this.sender);
+    circuitBreaker.recordFailure();
+    this.clock.advance(CHECK_INTERVAL);
+    circuitBreaker.recordSuccess();
+    assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+    circuitBreaker.recordFailure();
+    this.clock.advance(CHECK_INTERVAL);
+    circuitBreaker.recordSuccess();
+    assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+    assertThat(circuitBreaker.allowRequest()).isFalse();
+  }
+
+  @Test
+  void healthyIntervalResetsUnhealthyIntervals() {
+    SpanSenderCircuitBreaker circuitBreaker = createCircuitBreaker(this.sender);
+    circuitBreaker.recordFailure();
+    this.clock.advance(CHECK_INTERVAL);
+    circuitBreaker.recordSuccess();
+    this.clock.advance(CHECK_INTERVAL);
+    circuitBreaker.recordSuccess();
+    circuitBreaker.recordFailure();
+    this.clock.advance(CHECK_INTERVAL);
+    circuitBreaker.recordSuccess();
+    assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+  }
+
+  @Test
+  void increasingFailureCountMakesIntervalUnhealthy() {
+    SpanSenderCircuitBreaker circuitBreaker = createCircuitBreaker(this.sender);
+    given(this.sender.getFailureCount()).willReturn(1);
+    this.clock.advance(CHECK_INTERVAL);
+    circuitBreaker.recordSuccess();
+    given(this.sender.getFailureCount()).willReturn(3);
+    this.clock.advance(CHECK_INTERVAL);
+    circuitBreaker.recordSuccess();
+    assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+  }
+
+  @Test
+  void circuitHalfOpensOnceOpenDurationHasElapsed() {
+    SpanSenderCircuitBreaker circuitBreaker = createCircuitBreaker(this.sender);
+    open(circuitBreaker);
+    this.clock.advance(OPEN_DURATION.minusSeconds(1));
+    assertThat(circuitBreaker.allowRequest()).isFalse();
+    this.clock.advance(Duration.ofSeconds(1));
+    assertThat(circuitBreaker.allowRequest()).isTrue();
+    assertThat(circuitBreaker.getState()).isEqualTo(State.HALF_OPEN);
+  }
+
+  @Test
+  void halfOpenCircuitClosesAfterHealthyInterval() {
+    SpanSenderCircuitBreaker circuitBreaker = createCircuitBreaker(this.sender);
+    open(circuitBreaker);
+    this.clock.advance(OPEN_DURATION);
+    assertThat(circuitBreaker.allowRequest()).isTrue();
+    circuitBreaker.recordSuccess();
+    assertThat(circuitBreaker.getState()).isEqualTo(State.HALF_OPEN);
+    this.clock.advance(CHECK_INTERVAL);
+    circuitBreaker.recordSuccess();
+    assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+  }
+
+  @Test
+  void halfOpenCircuitOpensAfterUnhealthyInterval() {
+    SpanSenderCircuitBreaker circuitBreaker = createCircuitBreaker(this.sender);
+    open(circuitBreaker);
+    this.clock.advance(OPEN_DURATION);
+    assertThat(circuitBreaker.allowRequest()).isTrue();
+    circuitBreaker.recordFailure();
+    this.clock.advance(CHECK_INTERVAL);
+    circuitBreaker.recordSuccess();
+    assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+    assertThat(circuitBreaker.allowRequest()).isFalse();
+  }
+
+  private SpanSenderCircuitBreaker createCircuitBreaker(WavefrontSender sender) {
+    return new SpanSenderCircuitBreaker(sender, CHECK_INTERVAL, 2, OPEN_DURATION, this.clock);
+  }
+
+  private void open(SpanSenderCircuitBreaker circuitBreaker) {
+    for (int i = 0; i < 2; i++) {
+      circuitBreaker.recordFailure();
+      this.clock.advance(CHECK_INTERVAL);
+      circuitBreaker.recordSuccess();
+    }
+    assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+  }
+
+  private static final class TestClock extends Clock {
+
+    private Instant instant = Instant.EPOCH.plusSeconds(3600);
+
+    void advance(Duration duration) {
+      this.instant = this.instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return this.instant;
+    }
+
+  }
+
+}
@@ -1,14 +1,24 @@
 package com.wavefront.spring.autoconfigure;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import brave.Tracer;
 import brave.TracingCustomizer;
 import brave.handler.SpanHandler;
+import brave.http.HttpRequest;
+import brave.http.HttpRuleSampler;
+import brave.sampler.SamplerFunction;
+import brave.sampler.SamplerFunctions;
 import com.wavefront.opentracing.WavefrontTracer;
 import com.wavefront.opentracing.reporting.CompositeReporter;
 import com.wavefront.opentracing.reporting.Reporter;
@@ -16,29 +26,43 @@ import com.wavefront.sdk.appagent.jvm.reporter.WavefrontJvmReporter;
 import com.wavefront.sdk.common.Pair;
 import com.wavefront.sdk.common.WavefrontSender;
 import com.wavefront.sdk.common.application.ApplicationTags;
-import com.wavefront.sdk.entities.tracing.sampling.DurationSampler;
-import com.wavefront.sdk.entities.tracing.sampling.RateSampler;
+import com.wavefront.sdk.common.clients.WavefrontClient;
 import com.wavefront.sdk.entities.tracing.sampling.Sampler;
+import com.wavefront.spring.autoconfigure.DynamicSampler.Settings;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.wavefront.WavefrontMeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.mockito.ArgumentCaptor;
 
 import org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.JvmMetricsAutoConfiguration;
 import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
 import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
 import org.springframework.boot.actuate.autoconfigure.metrics.export.wavefront.WavefrontMetricsExportAutoConfiguration;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.boot.test.context.FilteredClassLoader;
 import org.springframework.boot.test.context.assertj.AssertableApplicationContext;
 import org.springframework.boot.test.context.runner.AbstractApplicationContextRunner;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 import org.springframework.boot.test.context.runner.ContextConsumer;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
 import org.springframework.cloud.sleuth.autoconfig.brave.BraveAutoConfiguration;
+import org.springframework.cloud.sleuth.instrument.web.HttpServerSampler;
 import org.springframework.core.Ordered;
+import org.springframework.core.env.MapPropertySource;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 /**
  * Tests for {@link WavefrontAutoConfiguration}.
@@ -49,7 +73,9 @@ import static org.mockito.Mockito.mock;
 class WavefrontAutoConfigurationTests {
 
   private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
-      .withConfiguration(AutoConfigurations.of(WavefrontAutoConfiguration.class));
+      .withConfiguration(AutoConfigurations.of(WavefrontAutoConfiguration.class,
+          WavefrontMetricsAutoConfiguration.class, WavefrontTracingSleuthAutoConfiguration.class,
+          WavefrontTracingOpenTracingAutoConfiguration.class));
 
   @Test
   void applicationTagsIsConfiguredFromPropertiesWhenNoneExists() {
@@ -143,11 +169,247 @@ class WavefrontAutoConfigurationTests {
         });
   }
 
+  @Test
+  void cardinalityLimitIsNotConfiguredByDefault() {
+    this.contextRunner
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class))).run((context) -> {
+      MeterRegistry registry = context.getBean(MeterRegistry.class);
+      assertThat(registry.find("wavefront.metrics.cardinality.rejected").meter()).isNull();
+    });
+  }
+
+  @Test
+  void cardinalityLimitIsAppliedToWavefrontRegistry() {
+    this.contextRunner
+        .withPropertyValues("wavefront.application.name=test-app",
+            "wavefront.metrics.cardinality-limit.enabled=true",
+            "wavefront.metrics.cardinality-limit.max-series-per-meter=1",
+            "wavefront.metrics.cardinality-limit.mode=overflow")
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class))).run((context) -> {
+      MeterRegistry registry = context.getBean(MeterRegistry.class);
+      registry.counter("my.counter", "uri", "/one");
+      registry.counter("my.counter", "uri", "/two");
+      assertThat(registry.find("my.counter").tags("uri", "overflow", "application", "test-app")
+          .counter()).isNotNull();
+      assertThat(registry.get("wavefront.metrics.cardinality.rejected").functionCounter().count())
+          .isEqualTo(1);
+    });
+  }
+
+  @Test
+  void wavefrontSenderIsNotDecoratedByDefault() {
+    WavefrontSender sender = mock(WavefrontSender.class);
+    this.contextRunner
+        .with(wavefrontMetrics(() -> sender))
+        .run((context) -> assertThat(context.getBean(WavefrontSender.class)).isSameAs(sender));
+  }
+
+  @Test
+  void wavefrontSenderCanPublishChangedPointsOnly() {
+    WavefrontSender sender = mock(WavefrontSender.class);
+    this.contextRunner
+        .withPropertyValues("wavefront.metrics.publishing.changed-only=true",
+            "wavefront.metrics.publishing.full-refresh-steps=5")
+        .with(wavefrontMetrics(() -> sender)).run((context) -> {
+      WavefrontSender wavefrontSender = context.getBean(WavefrontSender.class);
+      assertThat(wavefrontSender).isInstanceOf(ChangedOnlyWavefrontSender.class)
+          .hasFieldOrPropertyWithValue("delegate", sender)
+          .hasFieldOrPropertyWithValue("fullRefreshSteps", 5);
+      assertThat(context.getBean(WavefrontMeterRegistry.class))
+          .hasFieldOrPropertyWithValue("wavefrontSender", wavefrontSender);
+      MeterRegistry registry = context.getBean(MeterRegistry.class);
+      assertThat(registry.find("wavefront.metrics.publish.points").functionCounters()).hasSize(2);
+    });
+  }
+
+  @Test
+  void wavefrontSenderIsDeferredWhileApiTokenIsNegotiated() {
+    CompletableFuture<String> apiToken = new CompletableFuture<>();
+    this.contextRunner
+        .withInitializer((context) -> context.getEnvironment().getPropertySources()
+            .addLast(new DeferredApiTokenPropertySource(Collections.emptyMap(),
+                "management.metrics.export.wavefront.api-token", apiToken)))
+        .withConfiguration(AutoConfigurations.of(WavefrontMetricsExportAutoConfiguration.class))
+        .with(metrics())
+        .run((context) -> assertThat(context.getBean(WavefrontSender.class))
+            .isInstanceOf(DeferredWavefrontSender.class));
+  }
+
+  @Test
+  void userDefinedWavefrontSenderIsNotDeferredWhileApiTokenIsNegotiated() {
+    WavefrontSender sender = mock(WavefrontSender.class);
+    CompletableFuture<String> apiToken = new CompletableFuture<>();
+    this.contextRunner
+        .withInitializer((context) -> context.getEnvironment().getPropertySources()
+            .addLast(new DeferredApiTokenPropertySource(Collections.emptyMap(),
+                "management.metrics.export.wavefront.api-token", apiToken)))
+        .with(wavefrontMetrics(() -> sender))
+        .run((context) -> assertThat(context.getBean(WavefrontSender.class)).isSameAs(sender));
+  }
+
+  @Test
+  void wavefrontSenderIsCreatedWithSenderSettings() {
+    this.contextRunner
+        .withPropertyValues("management.metrics.export.wavefront.uri=proxy://localhost:2878",
+            "management.metrics.export.wavefront.sender.max-queue-size=200",
+            "management.metrics.export.wavefront.sender.message-size=2KB",
+            "wavefront.sender.batch-size=500", "wavefront.sender.max-queue-size=100")
+        .withConfiguration(AutoConfigurations.of(WavefrontMetricsExportAutoConfiguration.class))
+        .with(metrics()).run((context) -> {
+          WavefrontSender sender = context.getBean(WavefrontSender.class);
+          assertThat(sender).isInstanceOf(WavefrontClient.class)
+              .hasFieldOrPropertyWithValue("batchSize", 500)
+              .hasFieldOrPropertyWithValue("messageSizeBytes", 2048);
+          assertThat(getMetricsBuffer(sender).remainingCapacity()).isEqualTo(100);
+        });
+  }
+
+  @Test
+  void wavefrontSenderWithSpanSettingsUsesDedicatedSpanSender() {
+    this.contextRunner
+        .withPropertyValues("management.metrics.export.wavefront.uri=proxy://localhost:2878",
+            "wavefront.sender.max-queue-size=100", "wavefront.sender.spans.batch-size=50",
+            "wavefront.sender.spans.flush-interval=500ms")
+        .withConfiguration(AutoConfigurations.of(WavefrontMetricsExportAutoConfiguration.class))
+        .with(metrics()).run((context) -> {
+          WavefrontSender sender = context.getBean(WavefrontSender.class);
+          assertThat(sender).isInstanceOf(SpanRoutingWavefrontSender.class);
+          WavefrontSender pointSender = getMeteredDelegate(((SpanRoutingWavefrontSender) sender).getDelegate());
+          WavefrontSender spanSender = getMeteredDelegate(((SpanRoutingWavefrontSender) sender).getSpanSender());
+          assertThat(pointSender).hasFieldOrPropertyWithValue("batchSize", 10000);
+          assertThat(spanSender).hasFieldOrPropertyWithValue("batchSize", 50);
+          assertThat(getMetricsBuffer(spanSender).remainingCapacity()).isEqualTo(100);
+          MeterRegistry registry = context.getBean(MeterRegistry.class);
+          assertThat(registry.get("wavefront.sender.failures").functionCounters()).hasSize(2);
+          assertThat(registry.get("wavefront.sender.sent").tags("sender", "spans").functionCounters())
+              .hasSize(5);
+        });
+  }
+
+  @Test
+  void tracingWithSleuthUsesDedicatedSpanSender() {
+    this.contextRunner
+        .withPropertyValues("management.metrics.export.wavefront.uri=proxy://localhost:2878",
+            "wavefront.sender.spans.dedicated=true")
+        .withConfiguration(AutoConfigurations.of(WavefrontMetricsExportAutoConfiguration.class))
+        .with(metrics()).with(sleuth()).run((context) -> {
+          WavefrontSender sender = context.getBean(WavefrontSender.class);
+          assertThat(sender).isInstanceOf(SpanRoutingWavefrontSender.class);
+          WavefrontSender spanSender = ((SpanRoutingWavefrontSender) sender).getSpanSender();
+          WavefrontSleuthBraveSpanHandler braveSpanHandler = extractSpanHandler(context.getBean(Tracer.class));
+          assertThat(braveSpanHandler.spanHandler).hasFieldOrPropertyWithValue("wavefrontSender", spanSender);
+          context.getBean(Tracer.class).nextSpan().name("test").start().finish();
+          MeterRegistry registry = context.getBean(MeterRegistry.class);
+          assertThat(registry.get("wavefront.sender.sent").tags("sender", "default", "type", "spans")
+              .functionCounter().count()).isEqualTo(0);
+        });
+  }
+
+  @Test
+  void tracingWithOpenTracingUsesDedicatedSpanSender() {
+    this.contextRunner
+        .withClassLoader(new FilteredClassLoader("org.springframework.cloud.sleuth"))
+        .withPropertyValues("management.metrics.export.wavefront.uri=proxy://localhost:2878",
+            "wavefront.sender.spans.dedicated=true")
+        .withConfiguration(AutoConfigurations.of(WavefrontMetricsExportAutoConfiguration.class))
+        .with(metrics()).run((context) -> {
+          WavefrontSender sender = context.getBean(WavefrontSender.class);
+          WavefrontSender spanSender = ((SpanRoutingWavefrontSender) sender).getSpanSender();
+          assertThat(context.getBean(Reporter.class)).hasFieldOrPropertyWithValue("wavefrontSender", spanSender);
+        });
+  }
+
+  @Test
+  void wavefrontSenderWithSeveralEndpointsIsSharded() {
+    this.contextRunner
+        .withPropertyValues("management.metrics.export.wavefront.uri=proxy://localhost:2878",
+            "wavefront.sender.endpoints=proxy://localhost:2878,proxy://localhost:2879",
+            "wavefront.sender.batch-size=500")
+        .withConfiguration(AutoConfigurations.of(WavefrontMetricsExportAutoConfiguration.class))
+        .with(metrics()).run((context) -> {
+          WavefrontSender sender = context.getBean(WavefrontSender.class);
+          assertThat(sender).isInstanceOf(ShardedWavefrontSender.class);
+          Map<String, WavefrontSender> senders = ((ShardedWavefrontSender) sender).getSenders();
+          assertThat(senders).containsOnlyKeys("proxy://localhost:2878", "proxy://localhost:2879");
+          assertThat(senders.values()).allSatisfy((endpointSender) -> assertThat(endpointSender)
+              .isInstanceOf(WavefrontClient.class).hasFieldOrPropertyWithValue("batchSize", 500));
+          MeterRegistry registry = context.getBean(MeterRegistry.class);
+          assertThat(registry.get("wavefront.sender.endpoint.healthy").gauges()).hasSize(2);
+          assertThat(registry.get("wavefront.sender.failures").tags("endpoint", "proxy://localhost:2879")
+              .functionCounter()).isNotNull();
+          assertThat(registry.get("wavefront.sender.failovers").functionCounter()).isNotNull();
+        });
+  }
+
+  @Test
+  void wavefrontSenderIsClosedWithContext() {
+    this.contextRunner
+        .withPropertyValues("management.metrics.export.wavefront.uri=proxy://localhost:2878",
+            "wavefront.sender.endpoints=proxy://localhost:2878,proxy://localhost:2879",
+            "wavefront.sender.spans.dedicated=true", "wavefront.metrics.publishing.changed-only=true")
+        .withConfiguration(AutoConfigurations.of(WavefrontMetricsExportAutoConfiguration.class))
+        .with(metrics()).run((context) -> {
+          WavefrontSender sender = context.getBean(WavefrontSender.class);
+          assertThat(sender).isInstanceOf(ChangedOnlyWavefrontSender.class);
+          SpanRoutingWavefrontSender spanRoutingSender = (SpanRoutingWavefrontSender) ((ChangedOnlyWavefrontSender)
+              sender).getDelegate();
+          List<WavefrontSender> clients = new ArrayList<>();
+          clients.addAll(((ShardedWavefrontSender) getMeteredDelegate(spanRoutingSender.getDelegate())).getSenders()
+              .values());
+          clients.addAll(((ShardedWavefrontSender) getMeteredDelegate(spanRoutingSender.getSpanSender()))
+              .getSenders().values());
+          assertThat(clients).hasSize(4).allSatisfy((client) -> assertThat(client).isInstanceOf(WavefrontClient.class)
+              .extracting("closed").hasToString("false"));
+          context.close();
+          assertThat(clients).allSatisfy((client) -> assertThat(client).extracting("closed").hasToString("true"));
+        });
+  }
+
+  @Test
+  void deferredWavefrontSenderIsClosedWithContext() {
+    CompletableFuture<String> apiToken = new CompletableFuture<>();
+    this.contextRunner
+        .withInitializer((context) -> context.getEnvironment().getPropertySources()
+            .addLast(new DeferredApiTokenPropertySource(Collections.emptyMap(),
+                "management.metrics.export.wavefront.api-token", apiToken)))
+        .withConfiguration(AutoConfigurations.of(WavefrontMetricsExportAutoConfiguration.class))
+        .with(metrics()).run((context) -> {
+          WavefrontSender sender = context.getBean(WavefrontSender.class);
+          assertThat(sender).isInstanceOf(DeferredWavefrontSender.class).hasFieldOrPropertyWithValue("closed", false);
+          context.close();
+          assertThat(sender).hasFieldOrPropertyWithValue("closed", true);
+        });
+  }
+
+  @Test
+  void wavefrontSenderSettingsDoNotApplyToUserDefinedSender() {
+    WavefrontSender sender = mock(WavefrontSender.class);
+    this.contextRunner
+        .withPropertyValues("wavefront.sender.batch-size=500")
+        .with(wavefrontMetrics(() -> sender))
+        .run((context) -> assertThat(context.getBean(WavefrontSender.class)).isSameAs(sender));
+  }
+
+  @Test
+  void wavefrontSenderMetricsAreBound() {
+    this.contextRunner
+        .withPropertyValues("management.metrics.export.wavefront.uri=proxy://localhost:2878")
+        .withConfiguration(AutoConfigurations.of(WavefrontMetricsExportAutoConfiguration.class))
+        .with(metrics()).run((context) -> {
+          MeterRegistry registry = context.getBean(MeterRegistry.class);
+          assertThat(registry.get("wavefront.sender.failures").tags("sender", "default").functionCounter()
+              .count()).isEqualTo(0);
+        });
+  }
+
   @Test
   void jvmReporterIsConfiguredWhenNoneExists() {
     this.contextRunner
         .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
-        .run((context) -> assertThat(context).hasSingleBean(WavefrontJvmReporter.class));
+        .run((context) -> {
+          assertThat(context).hasSingleBean(WavefrontJvmReporter.class);
+          assertThat(context.getBean(WavefrontJvmReporterLifecycle.class).isRunning()).isTrue();
+        });
   }
 
   @Test
@@ -158,13 +420,103 @@ class WavefrontAutoConfigurationTests {
         .run(context -> assertThat(context).doesNotHaveBean(WavefrontJvmReporter.class));
   }
 
+  @Test
+  void jvmReporterCanBeConfigured() {
+    WavefrontSender sender = mock(WavefrontSender.class);
+    this.contextRunner
+        .withPropertyValues("wavefront.metrics.jvm.reporting-interval=30s",
+            "wavefront.metrics.jvm.groups=gc,threads")
+        .with(wavefrontMetrics(() -> sender)).run((context) -> {
+      WavefrontJvmReporter reporter = context.getBean(WavefrontJvmReporter.class);
+      assertThat(reporter).hasFieldOrPropertyWithValue("reportingIntervalSeconds", 30);
+      reporter.report();
+      ArgumentCaptor<String> names = ArgumentCaptor.forClass(String.class);
+      verify(sender, atLeastOnce()).sendMetric(names.capture(), anyDouble(), any(), any(), anyMap());
+      assertThat(names.getAllValues()).filteredOn((name) -> name.startsWith("app-agent.jvm."))
+          .isNotEmpty().allMatch((name) -> name.startsWith("app-agent.jvm.gc.")
+              || name.startsWith("app-agent.jvm.thread-states."));
+    });
+  }
+
+  @Test
+  void jvmReporterIntervalIsRoundedUpToSeconds() {
+    this.contextRunner
+        .withPropertyValues("wavefront.metrics.jvm.reporting-interval=1500ms")
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .run((context) -> assertThat(context.getBean(WavefrontJvmReporter.class))
+            .hasFieldOrPropertyWithValue("reportingIntervalSeconds", 2));
+  }
+
+  @Test
+  void jvmReporterIntervalBelowOneSecondIsRejected() {
+    this.contextRunner
+        .withPropertyValues("wavefront.metrics.jvm.reporting-interval=500ms")
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .run((context) -> assertThat(context).getFailure().hasRootCauseMessage(
+            "Reporting interval must be at least 1s, got PT0.5S"));
+  }
+
+  @Test
+  void jvmMetricsAreCollectedByReporterAndMicrometerByDefault() {
+    this.contextRunner
+        .withConfiguration(AutoConfigurations.of(JvmMetricsAutoConfiguration.class))
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class))).run((context) -> {
+      assertThat(context).hasSingleBean(WavefrontJvmReporter.class);
+      WavefrontMeterRegistry registry = context.getBean(WavefrontMeterRegistry.class);
+      assertThat(registry.find("jvm.memory.used").meters()).isNotEmpty();
+    });
+  }
+
+  @Test
+  void jvmMetricsCanBeCollectedByReporterOnly() {
+    this.contextRunner
+        .withPropertyValues("wavefront.metrics.jvm.collector=reporter")
+        .withConfiguration(AutoConfigurations.of(JvmMetricsAutoConfiguration.class))
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class))).run((context) -> {
+      assertThat(context).hasSingleBean(WavefrontJvmReporter.class);
+      WavefrontMeterRegistry registry = context.getBean(WavefrontMeterRegistry.class);
+      assertThat(registry.getMeters()).noneMatch((meter) -> meter.getId().getName().startsWith("jvm."));
+    });
+  }
+
+  @Test
+  void jvmMetricsCanBeCollectedByMicrometerOnly() {
+    this.contextRunner
+        .withPropertyValues("wavefront.metrics.jvm.collector=micrometer")
+        .withConfiguration(AutoConfigurations.of(JvmMetricsAutoConfiguration.class))
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class))).run((context) -> {
+      assertThat(context).doesNotHaveBean(WavefrontJvmReporter.class);
+      WavefrontMeterRegistry registry = context.getBean(WavefrontMeterRegistry.class);
+      assertThat(registry.find("jvm.memory.used").meters()).isNotEmpty();
+    });
+  }
+
+  @Test
+  void jfrMetricsAreNotConfiguredByDefault() {
+    this.contextRunner
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .run((context) -> assertThat(context).doesNotHaveBean(JfrMetrics.class));
+  }
+
+  @Test
+  @EnabledForJreRange(min = JRE.JAVA_14)
+  void jfrMetricsCanBeEnabled() {
+    this.contextRunner
+        .withPropertyValues("wavefront.metrics.jfr.enabled=true")
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .run((context) -> assertThat(context).hasSingleBean(JfrMetrics.class));
+  }
+
   @Test
   void jvmReporterCanBeCustomized() {
     WavefrontJvmReporter reporter = mock(WavefrontJvmReporter.class);
     this.contextRunner
         .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
         .withBean(WavefrontJvmReporter.class, () -> reporter)
-        .run((context) -> assertThat(context).getBean(WavefrontJvmReporter.class).isEqualTo(reporter));
+        .run((context) -> {
+          assertThat(context).getBean(WavefrontJvmReporter.class).isEqualTo(reporter);
+          assertThat(context).doesNotHaveBean(WavefrontJvmReporterLifecycle.class);
+        });
   }
 
   @Test
@@ -274,6 +626,187 @@ class WavefrontAutoConfigurationTests {
         });
   }
 
+  @Test
+  void tracingWithSleuthCanConfigureSampling() {
+    this.contextRunner
+        .withPropertyValues("wavefront.tracing.sampler.probability=0.1", "wavefront.tracing.sampler.duration=2s")
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .with(sleuth())
+        .run((context) -> {
+          DynamicSampler sampler = context.getBean(DynamicSampler.class);
+          assertThat(sampler.getSettings()).isEqualTo(Settings.of(0.1, Duration.ofSeconds(2)));
+          WavefrontSleuthBraveSpanHandler braveSpanHandler = extractSpanHandler(context.getBean(Tracer.class));
+          assertThat(braveSpanHandler.spanHandler.sampler).isSameAs(sampler);
+        });
+  }
+
+  @Test
+  void tracingWithSleuthIgnoresOpenTracingSamplingSettings() {
+    this.contextRunner
+        .withPropertyValues("wavefront.tracing.opentracing.sampler.probability=0.1",
+            "wavefront.tracing.opentracing.sampler.duration=2s")
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .with(sleuth())
+        .run((context) -> {
+          assertThat(context).hasBean(WavefrontTracingSleuthAutoConfiguration.BEAN_NAME);
+          assertThat(context.getBean(DynamicSampler.class).getSettings()).isEqualTo(Settings.of(null, null));
+        });
+  }
+
+  @Test
+  void tracingWithSleuthKeepsSleuthSamplerWhenSamplingIsNotConfigured() {
+    this.contextRunner
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .with(sleuth())
+        .run((context) -> {
+          assertThat(context).doesNotHaveBean(WavefrontBraveSampler.class);
+          assertThat(context).doesNotHaveBean(HttpServerSampler.NAME);
+          Tracer tracer = context.getBean(Tracer.class);
+          assertThat(extractSpanHandler(tracer).sampledAtHead).isFalse();
+          assertThat(ReflectionTestUtils.getField(tracer, "alwaysSampleLocal")).isEqualTo(false);
+        });
+  }
+
+  @Test
+  void tracingWithSleuthSamplesTracesWhenTheyStart() {
+    this.contextRunner
+        .withPropertyValues("wavefront.tracing.sampler.probability=0.1")
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .with(sleuth())
+        .run((context) -> {
+          assertThat(context).hasSingleBean(WavefrontBraveSampler.class);
+          Tracer tracer = context.getBean(Tracer.class);
+          assertThat(ReflectionTestUtils.getField(tracer, "sampler"))
+              .isSameAs(context.getBean(WavefrontBraveSampler.class));
+          assertThat(extractSpanHandler(tracer).sampledAtHead).isTrue();
+          assertThat(ReflectionTestUtils.getField(tracer, "alwaysSampleLocal")).isEqualTo(true);
+        });
+  }
+
+  @Test
+  void tracingWithSleuthCanSampleSlowAndFailedSpans() {
+    this.contextRunner
+        .withPropertyValues("wavefront.tracing.sampler.latency.quantile=0.99",
+            "wavefront.tracing.sampler.latency.max-operations=50", "wavefront.tracing.sampler.errors=true")
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .with(sleuth())
+        .run((context) -> {
+          assertThat(context).hasSingleBean(WavefrontBraveSampler.class);
+          DynamicSampler sampler = context.getBean(DynamicSampler.class);
+          OperationLatencySampler latencySampler = (OperationLatencySampler) ReflectionTestUtils.getField(sampler,
+              "latencySampler");
+          assertThat(latencySampler.getQuantile()).isEqualTo(0.99);
+          assertThat(ReflectionTestUtils.getField(latencySampler, "maxOperations")).isEqualTo(50);
+          assertThat(ReflectionTestUtils.getField(sampler, "sampleErrors")).isEqualTo(true);
+        });
+  }
+
+  @Test
+  void tracingWithSleuthCanDisableRecordingOfUnsampledTraces() {
+    this.contextRunner
+        .withPropertyValues("wavefront.tracing.sampler.rate=10", "wavefront.tracing.sampler.record-unsampled=false")
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .with(sleuth())
+        .run((context) -> {
+          Tracer tracer = context.getBean(Tracer.class);
+          assertThat(extractSpanHandler(tracer).sampledAtHead).isTrue();
+          assertThat(ReflectionTestUtils.getField(tracer, "alwaysSampleLocal")).isEqualTo(false);
+        });
+  }
+
+  @Test
+  void tracingWithSleuthDoesNotSampleTracesWhenTheyStartWithCustomSampler() {
+    this.contextRunner
+        .withPropertyValues("wavefront.tracing.sampler.probability=0.1")
+        .withBean(brave.sampler.Sampler.class, () -> brave.sampler.Sampler.NEVER_SAMPLE)
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .with(sleuth())
+        .run((context) -> {
+          assertThat(context).doesNotHaveBean(WavefrontBraveSampler.class);
+          assertThat(extractSpanHandler(context.getBean(Tracer.class)).sampledAtHead).isFalse();
+        });
+  }
+
+  @Test
+  void tracingWithSleuthCanConfigureHttpSamplingRules() {
+    this.contextRunner
+        .withPropertyValues("wavefront.tracing.sampler.http.rules[0].path-prefix=/health",
+            "wavefront.tracing.sampler.http.rules[0].probability=0.0",
+            "wavefront.tracing.sampler.http.rules[1].path-prefix=/api",
+            "wavefront.tracing.sampler.http.rules[1].method=post",
+            "wavefront.tracing.sampler.http.rules[1].rate=5")
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .with(sleuth())
+        .run((context) -> {
+          SamplerFunction<HttpRequest> sampler = context.getBean(HttpServerSampler.NAME, HttpRuleSampler.class);
+          assertThat(sampler.trySample(httpRequest("GET", "/health/liveness"))).isFalse();
+          assertThat(sampler.trySample(httpRequest("POST", "/api/orders"))).isTrue();
+          assertThat(sampler.trySample(httpRequest("GET", "/api/orders"))).isNull();
+        });
+  }
+
+  @Test
+  void tracingWithSleuthHttpSamplingRulesRecordUnsampledSpansLocally() {
+    this.contextRunner
+        .withPropertyValues("wavefront.tracing.sampler.http.rules[0].path-prefix=/health",
+            "wavefront.tracing.sampler.http.rules[0].probability=0.0")
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .with(sleuth())
+        .run((context) -> {
+          Tracer tracer = context.getBean(Tracer.class);
+          assertThat(extractSpanHandler(tracer).sampledAtHead).isTrue();
+          assertThat(ReflectionTestUtils.getField(tracer, "alwaysSampleLocal")).isEqualTo(true);
+        });
+  }
+
+  @Test
+  void tracingWithSleuthAndCustomHttpServerSamplerDoesNotSampleAtHead() {
+    this.contextRunner
+        .withPropertyValues("wavefront.tracing.sampler.http.rules[0].path-prefix=/health",
+            "wavefront.tracing.sampler.http.rules[0].probability=0.0")
+        .withBean(HttpServerSampler.NAME, SamplerFunction.class, SamplerFunctions::deferDecision)
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .with(sleuth())
+        .run((context) -> {
+          Tracer tracer = context.getBean(Tracer.class);
+          assertThat(extractSpanHandler(tracer).sampledAtHead).isFalse();
+          assertThat(ReflectionTestUtils.getField(tracer, "alwaysSampleLocal")).isEqualTo(false);
+        });
+  }
+
+  @Test
+  void tracingWithSleuthRecordsStartupSteps() {
+    BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(200);
+    this.contextRunner
+        .withInitializer((context) -> context.setApplicationStartup(applicationStartup))
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .with(sleuth())
+        .run((context) -> {
+          context.getBean(WavefrontSleuthSpanHandler.class).start();
+          assertThat(getStartupStepNames(applicationStartup)).contains(
+              "wavefront.application-tags.create", "wavefront.metrics.jvm-reporter.start",
+              "wavefront.tracing.internal-reporter.start", "wavefront.tracing.span-handler.start");
+        });
+  }
+
+  @Test
+  void tracingWithSleuthStartsSpanHandlerLazily() {
+    this.contextRunner
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .with(sleuth())
+        .run((context) -> {
+          WavefrontSleuthSpanHandler spanHandler = context.getBean(WavefrontSleuthSpanHandler.class);
+          assertThat(spanHandler.isRunning()).isFalse();
+          assertThat(spanHandler.sendingThread.isAlive()).isFalse();
+          spanHandler.start();
+          assertThat(spanHandler.isRunning()).isTrue();
+          assertThat(spanHandler.sendingThread.isAlive()).isTrue();
+          context.close();
+          assertThat(spanHandler.isRunning()).isFalse();
+          assertThat(spanHandler.sendingThread.isAlive()).isFalse();
+        });
+  }
+
   @Test
   void tracingWithOpenTracingBacksOffWhenSpringCloudSleuthIsAvailable() {
     this.contextRunner.with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
@@ -297,10 +830,22 @@ class WavefrontAutoConfigurationTests {
           assertThat(reporter.getFailureCount()).isEqualTo(42);
           assertThat(getRedMetricsCustomTagKeys(wavefrontTracer))
               .containsExactlyInAnyOrder("span.kind", "region", "test");
-          assertThat(getSamplers(wavefrontTracer)).isEmpty();
+          assertThat(getSamplers(wavefrontTracer)).hasSize(2);
+          assertThat(context.getBean(DynamicSampler.class).getSettings()).isEqualTo(Settings.of(null, null));
         });
   }
 
+  @Test
+  void tracingWithOpenTracingRecordsStartupSteps() {
+    BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(100);
+    this.contextRunner
+        .withClassLoader(new FilteredClassLoader("org.springframework.cloud.sleuth"))
+        .withInitializer((context) -> context.setApplicationStartup(applicationStartup))
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .run((context) -> assertThat(getStartupStepNames(applicationStartup)).contains(
+            "wavefront.tracing.span-reporter.start", "wavefront.tracing.tracer.start"));
+  }
+
   @Test
   void tracingWithOpenTracingCanConfigureRateSampling() {
     this.contextRunner
@@ -310,10 +855,56 @@ class WavefrontAutoConfigurationTests {
         .run((context) -> {
           assertThat(context).hasSingleBean(io.opentracing.Tracer.class).hasSingleBean(WavefrontTracer.class);
           WavefrontTracer wavefrontTracer = context.getBean(WavefrontTracer.class);
-          assertThat(getSamplers(wavefrontTracer)).singleElement().satisfies((sampler) -> {
-            assertThat(sampler).isInstanceOf(RateSampler.class);
-            assertThat(sampler).hasFieldOrPropertyWithValue("boundary", 1000L);
-          });
+          DynamicSampler sampler = context.getBean(DynamicSampler.class);
+          assertThat(sampler.getSettings()).isEqualTo(Settings.of(0.1, null));
+          assertThat(getSamplers(wavefrontTracer)).hasSize(2);
+        });
+  }
+
+  @Test
+  void tracingWithOpenTracingPrefersTracingSamplerSettings() {
+    this.contextRunner
+        .withClassLoader(new FilteredClassLoader("org.springframework.cloud.sleuth"))
+        .withPropertyValues("wavefront.tracing.sampler.probability=0.2",
+            "wavefront.tracing.opentracing.sampler.probability=0.1",
+            "wavefront.tracing.opentracing.sampler.duration=2s")
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .run((context) -> assertThat(context.getBean(DynamicSampler.class).getSettings())
+            .isEqualTo(Settings.of(0.2, null)));
+  }
+
+  @Test
+  void tracingWithOpenTracingRebindsSamplingWhenEnvironmentChanges() {
+    this.contextRunner
+        .withClassLoader(new FilteredClassLoader("org.springframework.cloud.sleuth"))
+        .withPropertyValues("wavefront.tracing.sampler.probability=0.1")
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .run((context) -> {
+          DynamicSampler sampler = context.getBean(DynamicSampler.class);
+          context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test",
+              Collections.singletonMap("wavefront.tracing.sampler.probability", "0.5")));
+          context.publishEvent(new EnvironmentChangeEvent(Collections.singleton("wavefront.tracing.test")));
+          assertThat(sampler.getSettings().getProbability()).isEqualTo(0.1);
+          context.publishEvent(new EnvironmentChangeEvent(
+              Collections.singleton("wavefront.tracing.sampler.probability")));
+          assertThat(sampler.getSettings().getProbability()).isEqualTo(0.5);
+          MeterRegistry registry = context.getBean(MeterRegistry.class);
+          assertThat(registry.get("sampler.probability").gauge().value()).isEqualTo(0.5);
+          assertThat(registry.get("sampler.updates").functionCounter().count()).isEqualTo(1);
+        });
+  }
+
+  @Test
+  void tracingWithOpenTracingExposesSamplerMetrics() {
+    this.contextRunner
+        .withClassLoader(new FilteredClassLoader("org.springframework.cloud.sleuth"))
+        .withPropertyValues("wavefront.tracing.opentracing.sampler.probability=0.1",
+            "wavefront.tracing.opentracing.sampler.duration=5s")
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .run((context) -> {
+          MeterRegistry registry = context.getBean(MeterRegistry.class);
+          assertThat(registry.get("sampler.spans").tag("sampler", "rate").functionCounters()).hasSize(2);
+          assertThat(registry.get("sampler.spans").tag("sampler", "duration").functionCounters()).hasSize(2);
         });
   }
 
@@ -326,10 +917,9 @@ class WavefrontAutoConfigurationTests {
         .run((context) -> {
           assertThat(context).hasSingleBean(io.opentracing.Tracer.class).hasSingleBean(WavefrontTracer.class);
           WavefrontTracer wavefrontTracer = context.getBean(WavefrontTracer.class);
-          assertThat(getSamplers(wavefrontTracer)).singleElement().satisfies((sampler) -> {
-            assertThat(sampler).isInstanceOf(DurationSampler.class);
-            assertThat(sampler).hasFieldOrPropertyWithValue("duration", 2000L);
-          });
+          DynamicSampler sampler = context.getBean(DynamicSampler.class);
+          assertThat(sampler.getSettings()).isEqualTo(Settings.of(null, Duration.ofSeconds(2)));
+          assertThat(getSamplers(wavefrontTracer)).hasSize(2);
         });
   }
 
@@ -349,6 +939,19 @@ class WavefrontAutoConfigurationTests {
         });
   }
 
+  @Test
+  void tracingWithOpenTracingDoesNotSampleErrors() {
+    this.contextRunner
+        .withClassLoader(new FilteredClassLoader("org.springframework.cloud.sleuth"))
+        .withPropertyValues("wavefront.tracing.sampler.errors=true")
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .run((context) -> {
+          context.getBean(WavefrontTracer.class);
+          assertThat(context.getBean(MeterRegistry.class).find("sampler.spans").tag("sampler", "error")
+              .functionCounters()).isEmpty();
+        });
+  }
+
   @Test
   void tracingWithOpenTracingWithCustomReporters() {
     OrderedReporter firstReporter = mock(OrderedReporter.class);
@@ -364,9 +967,76 @@ class WavefrontAutoConfigurationTests {
           assertThat(context).hasSingleBean(io.opentracing.Tracer.class).hasSingleBean(WavefrontTracer.class);
           WavefrontTracer wavefrontTracer = context.getBean(WavefrontTracer.class);
           Reporter reporter = (Reporter) ReflectionTestUtils.getField(wavefrontTracer, "reporter");
-          assertThat(reporter).isInstanceOf(CompositeReporter.class);
+          assertThat(reporter).isInstanceOf(AsyncReporter.class);
           assertThat(((CompositeReporter) reporter).getReporters())
               .containsExactly(secondReporter, firstReporter);
+          assertThat(context.getBean(MeterRegistry.class).get("reporter.queue.size").gauges()).hasSize(2);
+        });
+  }
+
+  @Test
+  void tracingWithOpenTracingReportsSynchronouslyToWavefrontByDefault() {
+    this.contextRunner
+        .withClassLoader(new FilteredClassLoader("org.springframework.cloud.sleuth"))
+        .with(wavefrontMetrics(() -> {
+          WavefrontSender sender = mock(WavefrontSender.class);
+          given(sender.getFailureCount()).willReturn(42);
+          return sender;
+        }))
+        .run((context) -> {
+          WavefrontTracer wavefrontTracer = context.getBean(WavefrontTracer.class);
+          Reporter reporter = (Reporter) ReflectionTestUtils.getField(wavefrontTracer, "reporter");
+          assertThat(reporter).isInstanceOf(MeteredReporter.class);
+          assertThat(((MeteredReporter) reporter).getReporters()).containsExactly(context.getBean(Reporter.class));
+          assertThat(ReflectionTestUtils.getField(wavefrontTracer, "wfSpanReporter")).isNotNull();
+          MeterRegistry registry = context.getBean(MeterRegistry.class);
+          assertThat(registry.get("reporter.spans.received").functionCounter()).isNotNull();
+          assertThat(registry.get("reporter.errors").tag("reporter", "WavefrontSpanReporter").functionCounter()
+              .count()).isEqualTo(42);
+          assertThat(registry.find("reporter.queue.size").gauge()).isNull();
+        });
+  }
+
+  @Test
+  void tracingWithOpenTracingCanReportAsynchronously() {
+    this.contextRunner
+        .withClassLoader(new FilteredClassLoader("org.springframework.cloud.sleuth"))
+        .withPropertyValues("wavefront.tracing.opentracing.async.enabled=true",
+            "wavefront.tracing.opentracing.async.max-queue-size=100")
+        .with(wavefrontMetrics(() -> mock(WavefrontSender.class)))
+        .run((context) -> {
+          WavefrontTracer wavefrontTracer = context.getBean(WavefrontTracer.class);
+          Reporter reporter = (Reporter) ReflectionTestUtils.getField(wavefrontTracer, "reporter");
+          assertThat(reporter).isInstanceOf(AsyncReporter.class);
+          assertThat(((AsyncReporter) reporter).getReporters()).containsExactly(context.getBean(Reporter.class));
+          assertThat(ReflectionTestUtils.getField(wavefrontTracer, "wfSpanReporter")).isNotNull();
+          MeterRegistry registry = context.getBean(MeterRegistry.class);
+          assertThat(registry.get("reporter.queue.remaining_capacity").gauge().value()).isEqualTo(100);
+          assertThat(registry.get("reporter.spans.dropped").functionCounter().count()).isEqualTo(0);
+        });
+  }
+
+  @Test
+  void tracingWithOpenTracingCanReportSynchronously() {
+    this.contextRunner
+        .withClassLoader(new FilteredClassLoader("org.springframework.cloud.sleuth"))
+        .withPropertyValues("wavefront.tracing.opentracing.async.enabled=false")
+        .with(wavefrontMetrics(() -> {
+          WavefrontSender sender = mock(WavefrontSender.class);
+          given(sender.getFailureCount()).willReturn(42);
+          return sender;
+        }))
+        .run((context) -> {
+          WavefrontTracer wavefrontTracer = context.getBean(WavefrontTracer.class);
+          Reporter reporter = (Reporter) ReflectionTestUtils.getField(wavefrontTracer, "reporter");
+          assertThat(reporter).isInstanceOf(MeteredReporter.class);
+          assertThat(((MeteredReporter) reporter).getReporters()).containsExactly(context.getBean(Reporter.class));
+          assertThat(ReflectionTestUtils.getField(wavefrontTracer, "wfSpanReporter")).isNotNull();
+          MeterRegistry registry = context.getBean(MeterRegistry.class);
+          assertThat(registry.get("reporter.spans.received").functionCounter()).isNotNull();
+          assertThat(registry.get("reporter.errors").tag("reporter", "WavefrontSpanReporter").functionCounter()
+              .count()).isEqualTo(42);
+          assertThat(registry.find("reporter.queue.size").gauge()).isNull();
         });
   }
 
@@ -392,6 +1062,11 @@ class WavefrontAutoConfigurationTests {
     this.contextRunner.with(metrics()).run((context) -> assertThat(context).doesNotHaveBean(Tracer.class));
   }
 
+  private List<String> getStartupStepNames(BufferingApplicationStartup applicationStartup) {
+    return applicationStartup.getBufferedTimeline().getEvents().stream()
+        .map((event) -> event.getStartupStep().getName()).collect(Collectors.toList());
+  }
+
   @SuppressWarnings("ConstantConditions")
   private WavefrontSleuthBraveSpanHandler extractSpanHandler(Tracer tracer) {
     SpanHandler[] handlers = (SpanHandler[]) ReflectionTestUtils.getField(
@@ -401,6 +1076,13 @@ class WavefrontAutoConfigurationTests {
     return (WavefrontSleuthBraveSpanHandler) handlers[1];
   }
 
+  private HttpRequest httpRequest(String method, String path) {
+    HttpRequest request = mock(HttpRequest.class);
+    given(request.method()).willReturn(method);
+    given(request.path()).willReturn(path);
+    return request;
+  }
+
   @SuppressWarnings("unchecked")
   private Set<String> getRedMetricsCustomTagKeys(WavefrontTracer wavefrontTracer) {
     return (Set<String>) ReflectionTestUtils.getField(wavefrontTracer,
@@ -421,6 +1103,15 @@ class WavefrontAutoConfigurationTests {
         .with(metrics());
   }
 
+  private static WavefrontSender getMeteredDelegate(WavefrontSender sender) {
+    assertThat(sender).isInstanceOf(MeteredWavefrontSender.class);
+    return ((MeteredWavefrontSender) sender).getDelegate();
+  }
+
+  private static LinkedBlockingQueue<?> getMetricsBuffer(WavefrontSender sender) {
+    return (LinkedBlockingQueue<?>) ReflectionTestUtils.getField(sender, "metricsBuffer");
+  }
+
   @SuppressWarnings("unchecked")
   private static <T extends AbstractApplicationContextRunner<?, ?, ?>> Function<T, T> metrics() {
     return (runner) -> (T) runner.withPropertyValues("management.metrics.use-global-registry=false")
@@ -0,0 +1,52 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.time.Duration;
+
+import com.wavefront.sdk.entities.tracing.sampling.RateSampler;
+import com.wavefront.spring.autoconfigure.DynamicSampler.Settings;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link WavefrontBraveSampler}.
+ */
+class WavefrontBraveSamplerTests {
+
+  private final DynamicSampler dynamicSampler = new DynamicSampler(() -> Settings.of(null, null));
+
+  @Test
+  void everyTraceIsSampledWhenNoSettingIsApplied() {
+    WavefrontBraveSampler sampler = new WavefrontBraveSampler(this.dynamicSampler, null);
+    for (long traceId = 0; traceId < 100; traceId++) {
+      assertThat(sampler.isSampled(traceId * 7919)).isTrue();
+    }
+  }
+
+  @Test
+  void probabilitySamplesSameTracesAsRateSampler() {
+    WavefrontBraveSampler sampler = new WavefrontBraveSampler(this.dynamicSampler, null);
+    this.dynamicSampler.update(Settings.of(0.5, null));
+    for (long traceId = 0; traceId < 1000; traceId++) {
+      assertThat(sampler.isSampled(traceId * 7919)).isEqualTo(RateSampler.sample(0.5, traceId * 7919));
+    }
+  }
+
+  @Test
+  void traceIsNotSampledWhenOnlyDurationIsApplied() {
+    WavefrontBraveSampler sampler = new WavefrontBraveSampler(this.dynamicSampler, null);
+    this.dynamicSampler.update(Settings.of(null, Duration.ofSeconds(1)));
+    assertThat(sampler.isSampled(1)).isFalse();
+  }
+
+  @Test
+  void rateLimitsSampledTraces() {
+    WavefrontBraveSampler sampler = new WavefrontBraveSampler(this.dynamicSampler, 2);
+    int sampled = 0;
+    for (long traceId = 0; traceId < 100; traceId++) {
+      sampled += sampler.isSampled(traceId) ? 1 : 0;
+    }
+    assertThat(sampled).isBetween(1, 2);
+  }
+
+}
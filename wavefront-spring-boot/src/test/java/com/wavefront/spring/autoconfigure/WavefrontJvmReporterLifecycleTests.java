@@ -0,0 +1,49 @@
+package com.wavefront.spring.autoconfigure;
+
+import com.wavefront.sdk.appagent.jvm.reporter.WavefrontJvmReporter;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.metrics.ApplicationStartup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests for {@link WavefrontJvmReporterLifecycle}.
+ */
+class WavefrontJvmReporterLifecycleTests {
+
+  private final WavefrontJvmReporter reporter = mock(WavefrontJvmReporter.class);
+
+  private final WavefrontJvmReporterLifecycle lifecycle = new WavefrontJvmReporterLifecycle(this.reporter,
+      ApplicationStartup.DEFAULT, "PT1M");
+
+  @Test
+  void reporterIsNotStartedOnCreation() {
+    verifyNoInteractions(this.reporter);
+    assertThat(this.lifecycle.isRunning()).isFalse();
+  }
+
+  @Test
+  void startStartsReporter() {
+    this.lifecycle.start();
+    verify(this.reporter).start();
+    assertThat(this.lifecycle.isRunning()).isTrue();
+  }
+
+  @Test
+  void stopStopsReporter() {
+    this.lifecycle.start();
+    this.lifecycle.stop();
+    verify(this.reporter).stop();
+    assertThat(this.lifecycle.isRunning()).isFalse();
+  }
+
+  @Test
+  void reporterIsStoppedAfterTracing() {
+    assertThat(this.lifecycle.getPhase()).isLessThan(WavefrontSleuthSpanHandler.PHASE);
+  }
+
+}
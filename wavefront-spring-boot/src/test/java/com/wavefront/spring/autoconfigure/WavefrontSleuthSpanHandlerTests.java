@@ -0,0 +1,236 @@
+package com.wavefront.spring.autoconfigure;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.wavefront.sdk.common.Pair;
+import com.wavefront.sdk.common.WavefrontSender;
+import com.wavefront.sdk.common.application.ApplicationTags;
+import com.wavefront.spring.autoconfigure.DynamicSampler.Settings;
+import com.wavefront.spring.autoconfigure.SpanSenderCircuitBreaker.State;
+import com.wavefront.spring.autoconfigure.WavefrontSleuthSpanHandler.TagList;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.sleuth.TraceContext;
+import org.springframework.cloud.sleuth.exporter.FinishedSpan;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link WavefrontSleuthSpanHandler}.
+ */
+class WavefrontSleuthSpanHandlerTests {
+
+  private final WavefrontSender sender = mock(WavefrontSender.class);
+
+  private final DynamicSampler sampler = new DynamicSampler(() -> Settings.of(null, null));
+
+  private final SpanSenderCircuitBreaker circuitBreaker = mock(SpanSenderCircuitBreaker.class);
+
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+
+  private final WavefrontSleuthSpanHandler spanHandler = new WavefrontSleuthSpanHandler(10, this.sender,
+      this.registry, "test-source", new ApplicationTags.Builder("test-app", "test-service").build(),
+      new WavefrontProperties(), ApplicationStartup.DEFAULT, this.sampler, this.circuitBreaker);
+
+  @AfterEach
+  void closeSpanHandler() {
+    this.spanHandler.close();
+  }
+
+  @Test
+  void spanIsSentWhenCircuitIsClosed() throws IOException {
+    given(this.circuitBreaker.allowRequest()).willReturn(true);
+    this.spanHandler.end(createTraceContext(), createSpan());
+    this.spanHandler.close();
+    verify(this.sender).sendSpan(any(), anyLong(), anyLong(), any(), any(), any(), any(), any(), any(), any());
+    verify(this.circuitBreaker).recordSuccess();
+    assertThat(this.registry.get("reporter.spans.shed").counter().count()).isZero();
+  }
+
+  @Test
+  void spanIsShedWhenCircuitIsOpen() throws IOException {
+    given(this.circuitBreaker.allowRequest()).willReturn(false);
+    TraceContext context = createTraceContext();
+    this.spanHandler.end(context, createSpan());
+    this.spanHandler.close();
+    verify(this.sender, never()).sendSpan(anyString(), anyLong(), anyLong(), any(), any(), any(), any(), any(),
+        any(), any());
+    verify(context, never()).traceId();
+    assertThat(this.registry.get("reporter.spans.received").counter().count()).isEqualTo(1);
+    assertThat(this.registry.get("reporter.spans.shed").counter().count()).isEqualTo(1);
+    assertThat(this.spanHandler.spanBuffer).isEmpty();
+    assertThat((Set<?>) ReflectionTestUtils.getField(this.spanHandler, "discoveredHeartbeatMetrics")).hasSize(1);
+  }
+
+  @Test
+  void spanIsNotSentWhenNotSampled() throws IOException {
+    given(this.circuitBreaker.allowRequest()).willReturn(true);
+    this.sampler.bindTo(this.registry);
+    this.sampler.update(Settings.of(null, Duration.ofSeconds(1)));
+    this.spanHandler.end(createTraceContext(), createSpan());
+    this.spanHandler.close();
+    verify(this.sender, never()).sendSpan(anyString(), anyLong(), anyLong(), any(), any(), any(), any(), any(),
+        any(), any());
+    assertThat(this.registry.get("sampler.spans").tags("sampler", "duration", "result", "unsampled")
+        .functionCounter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void spanSampledAtHeadIsSentRegardlessOfSettings() throws IOException {
+    given(this.circuitBreaker.allowRequest()).willReturn(true);
+    this.sampler.update(Settings.of(0.0, null));
+    TraceContext context = createTraceContext();
+    given(context.sampled()).willReturn(true);
+    this.spanHandler.end(context, createSpan(), true);
+    this.spanHandler.close();
+    verify(this.sender).sendSpan(any(), anyLong(), anyLong(), any(), any(), any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void spanRecordedLocallyIsSentWhenLongerThanDuration() throws IOException {
+    given(this.circuitBreaker.allowRequest()).willReturn(true);
+    this.sampler.update(Settings.of(1.0, Duration.ofMillis(1)));
+    TraceContext context = createTraceContext();
+    given(context.sampled()).willReturn(false);
+    this.spanHandler.end(context, createSpan(), true);
+    this.spanHandler.close();
+    verify(this.sender).sendSpan(any(), anyLong(), anyLong(), any(), any(), any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void spanRecordedLocallyIsNotSentWhenShorterThanDuration() throws IOException {
+    given(this.circuitBreaker.allowRequest()).willReturn(true);
+    this.sampler.update(Settings.of(1.0, Duration.ofSeconds(1)));
+    TraceContext context = createTraceContext();
+    given(context.sampled()).willReturn(false);
+    this.spanHandler.end(context, createSpan(), true);
+    this.spanHandler.close();
+    verify(this.sender, never()).sendSpan(anyString(), anyLong(), anyLong(), any(), any(), any(), any(), any(),
+        any(), any());
+  }
+
+  @Test
+  void spanWithErrorIsSentWhenErrorsAreSampled() throws IOException {
+    given(this.circuitBreaker.allowRequest()).willReturn(true);
+    WavefrontSleuthSpanHandler spanHandler = new WavefrontSleuthSpanHandler(10, this.sender, this.registry,
+        "test-source", new ApplicationTags.Builder("test-app", "test-service").build(), new WavefrontProperties(),
+        ApplicationStartup.DEFAULT, new DynamicSampler(() -> Settings.of(0.0, null), null, true),
+        this.circuitBreaker);
+    FinishedSpan span = createSpan();
+    given(span.getError()).willReturn(new IllegalStateException("test"));
+    spanHandler.end(createTraceContext(), span);
+    spanHandler.close();
+    verify(this.sender).sendSpan(any(), anyLong(), anyLong(), any(), any(), any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void sendFailureIsRecorded() throws IOException {
+    given(this.circuitBreaker.allowRequest()).willReturn(true);
+    willThrow(new IOException("test")).given(this.sender).sendSpan(any(), anyLong(), anyLong(), any(), any(),
+        any(), any(), any(), any(), any());
+    this.spanHandler.end(createTraceContext(), createSpan());
+    this.spanHandler.close();
+    verify(this.circuitBreaker).recordFailure();
+    assertThat(this.registry.get("reporter.errors").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void closeLetsTheSpanBeingSentComplete() throws Exception {
+    given(this.circuitBreaker.allowRequest()).willReturn(true);
+    CountDownLatch sending = new CountDownLatch(1);
+    AtomicBoolean interrupted = new AtomicBoolean();
+    willAnswer((invocation) -> {
+      sending.countDown();
+      try {
+        Thread.sleep(200);
+      }
+      catch (InterruptedException ex) {
+        interrupted.set(true);
+      }
+      return null;
+    }).given(this.sender).sendSpan(any(), anyLong(), anyLong(), any(), any(), any(), any(), any(), any(), any());
+    this.spanHandler.end(createTraceContext(), createSpan());
+    assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+    this.spanHandler.close();
+    assertThat(interrupted).isFalse();
+    assertThat(this.spanHandler.sendingThread.isAlive()).isFalse();
+  }
+
+  @Test
+  void spanIsDroppedWhenHandlerIsClosed() throws IOException {
+    given(this.circuitBreaker.allowRequest()).willReturn(true);
+    this.spanHandler.close();
+    this.spanHandler.end(createTraceContext(), createSpan());
+    assertThat(this.spanHandler.spanBuffer).isEmpty();
+    assertThat(this.registry.get("reporter.spans.dropped").counter().count()).isEqualTo(1);
+    verify(this.sender, never()).sendSpan(anyString(), anyLong(), anyLong(), any(), any(), any(), any(), any(),
+        any(), any());
+  }
+
+  @Test
+  void circuitStateIsExposedAsGauge() {
+    given(this.circuitBreaker.getState()).willReturn(State.OPEN);
+    assertThat(this.registry.get("reporter.circuit.state").gauge().value()).isEqualTo(2);
+    given(this.circuitBreaker.getState()).willReturn(State.CLOSED);
+    assertThat(this.registry.get("reporter.circuit.state").gauge().value()).isEqualTo(0);
+  }
+
+  @Test
+  void tagListCanOnlyKeepSomeTags() {
+    FinishedSpan span = createSpan();
+    Map<String, String> tags = new LinkedHashMap<>();
+    tags.put("region", "eu");
+    tags.put("user", "alice");
+    tags.put("component", "web");
+    tags.put("error", "");
+    given(span.getTags()).willReturn(tags);
+    TagList tagList = new TagList(Collections.singleton("application"),
+        Collections.singletonList(Pair.of("application", "test-app")), span,
+        new HashSet<>(Arrays.asList("application", "region")));
+    assertThat(tagList).containsExactly(Pair.of("application", "test-app"), Pair.of("region", "eu"));
+    assertThat(tagList.componentTagValue).isEqualTo("web");
+    assertThat(tagList.isError).isTrue();
+  }
+
+  private TraceContext createTraceContext() {
+    TraceContext context = mock(TraceContext.class);
+    given(context.traceId()).willReturn("463ac35c9f6413ad48485a3953bb6124");
+    given(context.spanId()).willReturn("a2fb4a1d1a96d312");
+    return context;
+  }
+
+  private FinishedSpan createSpan() {
+    FinishedSpan span = mock(FinishedSpan.class);
+    given(span.getName()).willReturn("test");
+    given(span.getStartTimestamp()).willReturn(1000L);
+    given(span.getEndTimestamp()).willReturn(3000L);
+    given(span.getTags()).willReturn(Collections.emptyMap());
+    given(span.getEvents()).willReturn(Collections.emptyList());
+    return span;
+  }
+
+}